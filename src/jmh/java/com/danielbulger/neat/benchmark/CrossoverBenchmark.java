@@ -0,0 +1,40 @@
+package com.danielbulger.neat.benchmark;
+
+import com.danielbulger.neat.Genome;
+import com.danielbulger.neat.mate.CrossoverMate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrossoverBenchmark {
+
+	@Param({"10", "100", "1000", "10000"})
+	public int connections;
+
+	private final CrossoverMate mate = new CrossoverMate(0.85f);
+	private final SplittableRandom choices = new SplittableRandom(0);
+	private Genome mother;
+	private Genome father;
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(connections);
+		mother = Genomes.random(connections, random);
+		father = Genomes.relative(mother, Math.max(1, connections / 10), random);
+		mother.setFitness(2);
+		father.setFitness(1);
+	}
+
+	@Benchmark
+	public Genome mate() {
+		return mate.mate(mother, father, choices);
+	}
+}
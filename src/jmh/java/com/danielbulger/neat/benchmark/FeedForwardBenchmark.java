@@ -0,0 +1,54 @@
+package com.danielbulger.neat.benchmark;
+
+import com.danielbulger.neat.Genome;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeedForwardBenchmark {
+
+	private static final int BATCH_SIZE = 1024;
+
+	@Param({"10", "100", "1000", "10000"})
+	public int connections;
+
+	private Genome genome;
+	private float[] inputs;
+	private float[] batchInputs;
+	private float[] batchOutputs;
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(connections);
+		genome = Genomes.random(connections, random);
+
+		inputs = new float[Genomes.NUM_INPUTS];
+		batchInputs = new float[Genomes.NUM_INPUTS * BATCH_SIZE];
+		batchOutputs = new float[Genomes.NUM_OUTPUTS * BATCH_SIZE];
+
+		for (int i = 0; i < batchInputs.length; ++i) {
+			batchInputs[i] = random.nextFloat();
+		}
+
+		System.arraycopy(batchInputs, 0, inputs, 0, inputs.length);
+	}
+
+	@Benchmark
+	public float[] feedForward() {
+		return genome.feedForward(inputs);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public float[] feedForwardBatch() {
+		genome.feedForwardBatch(batchInputs, batchOutputs);
+		return batchOutputs;
+	}
+}
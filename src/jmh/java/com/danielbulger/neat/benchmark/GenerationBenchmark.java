@@ -0,0 +1,83 @@
+package com.danielbulger.neat.benchmark;
+
+import com.danielbulger.neat.Checkpoint;
+import com.danielbulger.neat.Evolution;
+import com.danielbulger.neat.Genome;
+import com.danielbulger.neat.evaluate.SpeciesDistanceClassifier;
+import com.danielbulger.neat.select.WeightedFitnessSelect;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a whole generation, which is dominated by {@code Population.makeNextGeneration}
+ * as the fitness function is a single cheap forward pass.
+ * <p>
+ * Every invocation evolves the same generation, restored from a checkpoint taken once the seeded
+ * population has evolved for a few generations, so every iteration measures the same work.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class GenerationBenchmark {
+
+	@Param({"1000", "10000", "100000"})
+	public int populationSize;
+
+	/**
+	 * The number of generations evolved before the checkpoint, so the genomes have some structure.
+	 */
+	private static final int GENERATIONS = 10;
+
+	private final float[] inputs = new float[Genomes.NUM_INPUTS];
+	private Path checkpoint;
+	private Evolution evolution;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		final Evolution evolution = create();
+
+		for (int i = 0; i < GENERATIONS; ++i) {
+			evolution.evolve();
+		}
+
+		checkpoint = Files.createTempFile("generation-benchmark", ".checkpoint");
+		Checkpoint.save(evolution, checkpoint);
+	}
+
+	@Setup(Level.Invocation)
+	public void restore() throws IOException {
+		// A new evolution, with the fitness cache of the checkpoint, so nothing carries over from the last invocation.
+		evolution = create();
+		Checkpoint.restore(evolution, checkpoint);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(checkpoint);
+	}
+
+	private Evolution create() {
+		final Properties properties = Genomes.properties(populationSize);
+		properties.setProperty("evolution.seed", "0");
+
+		return new Evolution(
+			properties,
+			new SpeciesDistanceClassifier(),
+			new WeightedFitnessSelect(),
+			genome -> genome.feedForward(inputs)[0] + 1
+		);
+	}
+
+	@Benchmark
+	public Genome makeNextGeneration() {
+		return evolution.evolve();
+	}
+}
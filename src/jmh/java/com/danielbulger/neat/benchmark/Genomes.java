@@ -0,0 +1,138 @@
+package com.danielbulger.neat.benchmark;
+
+import com.danielbulger.neat.Genome;
+import com.danielbulger.neat.Innovation;
+import com.danielbulger.neat.Node;
+import com.danielbulger.neat.NodeGenes;
+import com.danielbulger.neat.NodeType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Builds the genomes and configuration shared by the benchmarks.
+ */
+final class Genomes {
+
+	static final int NUM_INPUTS = 8;
+
+	static final int NUM_OUTPUTS = 4;
+
+	/**
+	 * Create a random feed-forward {@link Genome} with {@code numConnections} connections
+	 * and roughly one hidden node for every four connections.
+	 */
+	static Genome random(int numConnections, Random random) {
+
+		final Genome genome = new Genome(NUM_INPUTS, NUM_OUTPUTS);
+
+		for (int i = 0; i < numConnections / 4; ++i) {
+			genome.addNode(Node.create(NodeType.HIDDEN));
+		}
+
+		final NodeGenes nodes = genome.getNodeGenes();
+
+		while (genome.getConnectionGenes().size() < numConnections) {
+			int from = random.nextInt(nodes.size());
+			int to = random.nextInt(nodes.size());
+
+			// Connect by node type order and between hidden nodes forwards by id so the genome is acyclic.
+			final int compare = nodes.getType(from).getOrder() - nodes.getType(to).getOrder();
+			if (compare > 0 || (compare == 0 && from > to)) {
+				final int temp = from;
+				from = to;
+				to = temp;
+			}
+
+			final NodeType type = nodes.getType(from);
+			if (from == to || (type == nodes.getType(to) && !type.isSameTypeConnectionAllowed())) {
+				continue;
+			}
+
+			genome.addConnection(
+				Innovation.next().getId(),
+				nodes.getId(from),
+				nodes.getId(to),
+				random.nextFloat() * 2 - 1,
+				true
+			);
+		}
+
+		return genome;
+	}
+
+	/**
+	 * Create a {@link Genome} with {@code numInputs} inputs fully connected to {@code numHidden}
+	 * hidden nodes, which are fully connected to the outputs.
+	 */
+	static Genome layered(int numInputs, int numHidden, Random random) {
+
+		final Genome genome = new Genome(numInputs, NUM_OUTPUTS);
+		final NodeGenes nodes = genome.getNodeGenes();
+		final int numNodes = nodes.size();
+
+		for (int i = 0; i < numHidden; ++i) {
+			final Node hidden = Node.create(NodeType.HIDDEN);
+			genome.addNode(hidden);
+
+			for (int node = 0; node < numNodes; ++node) {
+				final int from = nodes.getType(node) == NodeType.INPUT ? nodes.getId(node) : hidden.getId();
+				final int to = nodes.getType(node) == NodeType.INPUT ? hidden.getId() : nodes.getId(node);
+				genome.addConnection(Innovation.next().getId(), from, to, random.nextFloat() * 2 - 1, true);
+			}
+		}
+
+		return genome;
+	}
+
+	/**
+	 * Create a relative of {@code parent} with perturbed weights and {@code extra} new connections.
+	 */
+	static Genome relative(Genome parent, int extra, Random random) {
+
+		final Genome genome = new Genome(parent);
+
+		for (int i = 0; i < genome.getConnectionGenes().size(); ++i) {
+			if (random.nextFloat() < 0.2f) {
+				genome.setWeight(i, random.nextFloat() * 2 - 1);
+			}
+		}
+
+		final NodeGenes nodes = genome.getNodeGenes();
+
+		for (int i = 0; i < extra; ++i) {
+			final Node node = Node.create(NodeType.HIDDEN);
+			genome.addNode(node);
+			genome.addConnection(
+				Innovation.next().getId(),
+				nodes.getId(random.nextInt(NUM_INPUTS)),
+				node.getId(),
+				random.nextFloat(),
+				true
+			);
+		}
+
+		return genome;
+	}
+
+	static Properties properties(int populationSize) {
+		final Properties properties = new Properties();
+
+		try (InputStream in = Genomes.class.getResourceAsStream("/neat.properties")) {
+			properties.load(in);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		properties.setProperty("genome.input-nodes", Integer.toString(NUM_INPUTS));
+		properties.setProperty("genome.output-nodes", Integer.toString(NUM_OUTPUTS));
+		properties.setProperty("population.initial-size", Integer.toString(populationSize));
+		return properties;
+	}
+
+	private Genomes() {
+	}
+}
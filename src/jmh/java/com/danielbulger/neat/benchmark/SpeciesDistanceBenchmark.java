@@ -0,0 +1,40 @@
+package com.danielbulger.neat.benchmark;
+
+import com.danielbulger.neat.Genome;
+import com.danielbulger.neat.Species;
+import com.danielbulger.neat.evaluate.SpeciesDistanceClassifier;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpeciesDistanceBenchmark {
+
+	@Param({"10", "100", "1000", "10000"})
+	public int connections;
+
+	private final SpeciesDistanceClassifier classifier = new SpeciesDistanceClassifier();
+	private Species species;
+	private Genome genome;
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(connections);
+		final Genome representative = Genomes.random(connections, random);
+
+		species = new Species();
+		species.add(representative);
+		genome = Genomes.relative(representative, Math.max(1, connections / 10), random);
+	}
+
+	@Benchmark
+	public boolean isWithinSpecies() {
+		return classifier.isWithinSpecies(species, genome);
+	}
+}
@@ -0,0 +1,54 @@
+package com.danielbulger.neat.benchmark;
+
+import com.danielbulger.neat.Genome;
+import com.danielbulger.neat.network.CompiledNetwork;
+import com.danielbulger.neat.network.LayeredNetwork;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WideFeedForwardBenchmark {
+
+	private static final int NUM_HIDDEN = 32;
+
+	@Param({"64", "256", "1024"})
+	public int inputs;
+
+	private CompiledNetwork compiled;
+	private LayeredNetwork layered;
+	private float[] values;
+	private float[] outputs;
+
+	@Setup
+	public void setup() {
+		final Random random = new Random(inputs);
+		final Genome genome = Genomes.layered(inputs, NUM_HIDDEN, random);
+		compiled = CompiledNetwork.compile(genome);
+		layered = LayeredNetwork.compile(genome);
+		values = new float[inputs];
+		outputs = new float[Genomes.NUM_OUTPUTS];
+
+		for (int i = 0; i < values.length; ++i) {
+			values[i] = random.nextFloat();
+		}
+	}
+
+	@Benchmark
+	public float[] compiled() {
+		compiled.activate(values, outputs);
+		return outputs;
+	}
+
+	@Benchmark
+	public float[] layered() {
+		layered.activate(values, outputs);
+		return outputs;
+	}
+}
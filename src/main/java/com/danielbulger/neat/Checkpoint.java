@@ -0,0 +1,296 @@
+package com.danielbulger.neat;
+
+import com.danielbulger.neat.evaluate.FitnessCache;
+import com.danielbulger.neat.io.GenomeCodec;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Saves and restores the complete state of an {@link Evolution} run as a binary file.
+ * <p>
+ * A checkpoint holds every {@link Genome} of the population, the members, best and staleness
+ * of each {@link Species}, the node and innovation counters of the {@link EvolutionContext} so a resumed
+ * run keeps numbering new structure where the previous one stopped, and the seed and
+ * generation so it makes the same random choices as the uninterrupted run. Each {@link Genome} is
+ * encoded with the {@link GenomeCodec} followed by whether it is evaluated, and one shared by the
+ * population and a species is only written once. The entries of the {@link FitnessCache} are kept
+ * too, so a resumed run evaluates exactly the genomes the uninterrupted run would.
+ * <p>
+ * The configuration, fitness function and strategies are not part of the checkpoint; a run is
+ * restored into an {@link Evolution} created with the same properties.
+ */
+public final class Checkpoint {
+
+	private static final int MAGIC = 0x4E454154;
+
+	private static final int VERSION = 1;
+
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private static final int CACHE_ENTRY_BYTES = Long.BYTES + Float.BYTES;
+
+	private Checkpoint() {
+	}
+
+	/**
+	 * Write the state of the {@code evolution} to the {@code path}.
+	 * <p>
+	 * The checkpoint is written to a temporary file that then replaces the {@code path}, so a
+	 * crash while saving never leaves a partial checkpoint behind.
+	 */
+	public static void save(final @NotNull Evolution evolution, final @NotNull Path path) throws IOException {
+
+		final Population population = evolution.getPopulation();
+		final List<Genome> genomes = population.getGenomes();
+		final List<Species> species = population.getSpecies();
+
+		// Give every distinct genome an index so shared genomes are written once.
+		final Map<Genome, Integer> table = new IdentityHashMap<>();
+		final List<Genome> unique = new ArrayList<>();
+
+		for (final Genome genome : genomes) {
+			index(table, unique, genome);
+		}
+
+		for (final Species sp : species) {
+			index(table, unique, sp.getBest());
+			index(table, unique, sp.getRepresentative());
+
+			for (final Genome genome : sp.getGenomes()) {
+				index(table, unique, genome);
+			}
+		}
+
+		final Path parent = path.toAbsolutePath().getParent();
+		final Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+
+		try (final FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			final Writer writer = new Writer(channel);
+
+			writer.ensure(6 * Integer.BYTES + Long.BYTES);
+			writer.buffer.putInt(MAGIC);
+			writer.buffer.putInt(VERSION);
+			writer.buffer.putInt(evolution.getContext().getLastNodeId());
+			writer.buffer.putInt(evolution.getContext().getLastInnovation());
+			writer.buffer.putLong(evolution.getSeed());
+			writer.buffer.putInt(evolution.getGeneration());
+			writer.buffer.putInt(unique.size());
+
+			for (final Genome genome : unique) {
+				writer.ensure(GenomeCodec.maxEncodedSize(genome) + 1);
+				GenomeCodec.encode(genome, writer.buffer);
+				writer.buffer.put((byte) (genome.isEvaluated() ? 1 : 0));
+			}
+
+			writer.ensure(Integer.BYTES * (1 + genomes.size()));
+			writer.buffer.putInt(genomes.size());
+
+			for (final Genome genome : genomes) {
+				writer.buffer.putInt(table.get(genome));
+			}
+
+			writer.ensure(Integer.BYTES);
+			writer.buffer.putInt(species.size());
+
+			for (final Species sp : species) {
+				writer.ensure(Integer.BYTES * 5 + Float.BYTES + Integer.BYTES * sp.getGenomes().size());
+				writer.buffer.putInt(sp.getStaleness());
+				writer.buffer.putFloat(sp.getHighestFitness());
+				writer.buffer.putInt(sp.getBest() == null ? -1 : table.get(sp.getBest()));
+				writer.buffer.putInt(sp.getRepresentative() == null ? -1 : table.get(sp.getRepresentative()));
+				writer.buffer.putInt(sp.getGenomes().size());
+
+				for (final Genome genome : sp.getGenomes()) {
+					writer.buffer.putInt(table.get(genome));
+				}
+			}
+
+			final FitnessCache cache = evolution.getFitnessCache();
+
+			writer.ensure(CACHE_ENTRY_BYTES);
+			writer.buffer.putInt(cache == null ? 0 : cache.size());
+
+			if (cache != null) {
+				try {
+					cache.forEach(writer::putCacheEntry);
+				} catch (UncheckedIOException e) {
+					throw e.getCause();
+				}
+			}
+
+			writer.flush();
+			channel.force(true);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Replace the population of the {@code evolution} with the run saved at the {@code path}
+	 * and continue the node and innovation counters, seed and generation from it.
+	 */
+	public static void restore(final @NotNull Evolution evolution, final @NotNull Path path) throws IOException {
+
+		final MappedByteBuffer buffer;
+
+		try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException(String.format("Checkpoint %s is too large to map", path));
+			}
+
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		try {
+			if (buffer.getInt() != MAGIC) {
+				throw new IOException(String.format("%s is not a checkpoint", path));
+			}
+
+			final int version = buffer.getInt();
+
+			if (version != VERSION) {
+				throw new IOException(String.format("Unsupported checkpoint version %d", version));
+			}
+
+			final int lastNodeId = buffer.getInt();
+			final int lastInnovation = buffer.getInt();
+			final long seed = buffer.getLong();
+			final int generation = buffer.getInt();
+			final Genome[] table = new Genome[buffer.getInt()];
+
+			for (int i = 0; i < table.length; ++i) {
+				table[i] = GenomeCodec.decode(buffer);
+				table[i].setEvaluated(buffer.get() != 0);
+			}
+
+			final int numGenomes = buffer.getInt();
+			final List<Genome> genomes = new ArrayList<>(numGenomes);
+
+			for (int i = 0; i < numGenomes; ++i) {
+				genomes.add(table[buffer.getInt()]);
+			}
+
+			final int numSpecies = buffer.getInt();
+			final List<Species> species = new ArrayList<>(numSpecies);
+
+			for (int i = 0; i < numSpecies; ++i) {
+				final int staleness = buffer.getInt();
+				final float highestFitness = buffer.getFloat();
+				final Genome best = lookup(table, buffer.getInt());
+				final Genome representative = lookup(table, buffer.getInt());
+				final int numMembers = buffer.getInt();
+				final List<Genome> members = new ArrayList<>(numMembers);
+
+				for (int j = 0; j < numMembers; ++j) {
+					members.add(table[buffer.getInt()]);
+				}
+
+				species.add(new Species(members, best, representative, highestFitness, staleness));
+			}
+
+			final int numCached = buffer.getInt();
+			final FitnessCache cache = evolution.getFitnessCache();
+
+			if (cache != null) {
+				cache.clear();
+			}
+
+			for (int i = 0; i < numCached; ++i) {
+				final long hash = buffer.getLong();
+				final float fitness = buffer.getFloat();
+
+				// A run restored without memoisation has no cache and evaluates every genome.
+				if (cache != null) {
+					cache.put(hash, fitness);
+				}
+			}
+
+			evolution.getPopulation().restore(genomes, species);
+			evolution.getContext().restore(lastNodeId, lastInnovation);
+			evolution.setSeed(seed);
+			evolution.setGeneration(generation);
+		} catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+			throw new IOException(String.format("Checkpoint %s is corrupt", path), e);
+		}
+	}
+
+	private static void index(final Map<Genome, Integer> table, final List<Genome> unique, final Genome genome) {
+		if (genome != null && !table.containsKey(genome)) {
+			table.put(genome, unique.size());
+			unique.add(genome);
+		}
+	}
+
+	@Contract(pure = true)
+	private static Genome lookup(final Genome[] table, int index) {
+		return index < 0 ? null : table[index];
+	}
+
+	/**
+	 * Buffers the checkpoint in memory and writes it to the channel in large blocks.
+	 */
+	private static final class Writer {
+
+		private final FileChannel channel;
+		private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+		private Writer(final FileChannel channel) {
+			this.channel = channel;
+		}
+
+		/**
+		 * Make room for at least {@code bytes} more bytes in the buffer.
+		 */
+		private void ensure(int bytes) throws IOException {
+			if (buffer.remaining() >= bytes) {
+				return;
+			}
+
+			flush();
+
+			if (buffer.capacity() < bytes) {
+				buffer = ByteBuffer.allocateDirect(bytes);
+			}
+		}
+
+		/**
+		 * Write an entry of the {@link FitnessCache}, wrapping any {@link IOException} so it can be
+		 * called from {@link FitnessCache#forEach}.
+		 */
+		private void putCacheEntry(long hash, float fitness) {
+			try {
+				ensure(CACHE_ENTRY_BYTES);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+
+			buffer.putLong(hash);
+			buffer.putFloat(fitness);
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+
+			buffer.clear();
+		}
+	}
+}
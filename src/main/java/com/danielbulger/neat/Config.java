@@ -1,10 +1,13 @@
 package com.danielbulger.neat;
 
+import com.danielbulger.neat.activation.Activation;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.SplittableRandom;
 
 public class Config {
 
@@ -18,6 +21,10 @@ public class Config {
 	private float cloneMateChance;
 	private float crossoverMateChance;
 	private float crossoverDisableConnectionChance;
+	private boolean memoiseFitness;
+	private int fitnessCacheSize;
+	private long seed;
+	private Activation activation;
 
 	public Config(final @NotNull Properties properties) {
 		initialise(Objects.requireNonNull(properties));
@@ -34,6 +41,10 @@ public class Config {
 		cloneMateChance = getFloat(properties, "mate.clone-chance");
 		crossoverMateChance = getFloat(properties, "mate.crossover-chance");
 		crossoverDisableConnectionChance = getFloat(properties, "mate.crossover.disable-connection-chance");
+		memoiseFitness = getBoolean(properties, "fitness.memoise", true);
+		fitnessCacheSize = getInt(properties, "fitness.cache-size", 10_000);
+		seed = getLong(properties, "evolution.seed", new SplittableRandom().nextLong());
+		activation = getActivation(properties, "genome.activation", Activation.SIGMOID);
 	}
 
 	@Contract(pure = true)
@@ -47,6 +58,39 @@ public class Config {
 		return value;
 	}
 
+	@Contract(pure = true)
+	private int getInt(final Properties properties, final @NotNull String key, int defaultValue) {
+		final String value = properties.getProperty(key);
+		return value == null ? defaultValue : Integer.parseInt(value);
+	}
+
+	@Contract(pure = true)
+	private long getLong(final Properties properties, final @NotNull String key, long defaultValue) {
+		final String value = properties.getProperty(key);
+		return value == null ? defaultValue : Long.parseLong(value);
+	}
+
+	@Contract(pure = true)
+	private boolean getBoolean(final Properties properties, final @NotNull String key, boolean defaultValue) {
+		final String value = properties.getProperty(key);
+		return value == null ? defaultValue : Boolean.parseBoolean(value);
+	}
+
+	@Contract(pure = true)
+	private Activation getActivation(final Properties properties, final @NotNull String key, final Activation defaultValue) {
+		final String value = properties.getProperty(key);
+
+		if (value == null) {
+			return defaultValue;
+		}
+
+		try {
+			return Activation.valueOf(value.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException(String.format("Unknown activation function %s for %s", value, key), e);
+		}
+	}
+
 	@Contract(pure = true)
 	private float getFloat(final Properties properties, final @NotNull String key) {
 		return Float.parseFloat(getString(properties, key));
@@ -96,4 +140,30 @@ public class Config {
 	public float getCrossoverDisableConnectionChance() {
 		return crossoverDisableConnectionChance;
 	}
+
+	public boolean isMemoiseFitness() {
+		return memoiseFitness;
+	}
+
+	public int getFitnessCacheSize() {
+		return fitnessCacheSize;
+	}
+
+	/**
+	 * The same seed only replays a run while networks are evaluated by the scalar kernel, which is
+	 * the default. The vector kernel enabled by {@code -Dneat.network.vector=true} sums in an order
+	 * that depends on the CPU, so fitness values and the run may differ.
+	 *
+	 * @return The seed of every random choice in the run, chosen at random unless set.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return The activation function every genome of the initial population starts with.
+	 */
+	public Activation getActivation() {
+		return activation;
+	}
 }
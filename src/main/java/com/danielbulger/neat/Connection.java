@@ -1,10 +1,11 @@
 package com.danielbulger.neat;
 
+import com.danielbulger.neat.util.Random;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Objects;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
 
 public class Connection {
 
@@ -14,11 +15,41 @@ public class Connection {
 	 *
 	 * @param from The source {@link Node} of the {@link Connection}.
 	 * @param to The end {@link Node} of the {@link Connection}.
+	 * @param random The stream the weight is drawn from.
 	 * @return The newly created {@link Node}.
 	 */
-	public static Connection create(Node from, Node to) {
-		return create(from, to, ThreadLocalRandom.current().nextFloat());
+	public static Connection create(Node from, Node to, @NotNull SplittableRandom random) {
+		return create(from, to, Random.nextFloat(random));
 	}
+
+	/**
+	 * Create a new {@link Connection} between {@code from} and {@code to} with a
+	 * random {@link #weight} and an existing {@code innovation}.
+	 *
+	 * @param from The source {@link Node} of the {@link Connection}.
+	 * @param to The end {@link Node} of the {@link Connection}.
+	 * @param innovation The innovation of the {@link Connection}.
+	 * @param random The stream the weight is drawn from.
+	 * @return The newly created {@link Node}.
+	 */
+	public static Connection create(Node from, Node to, Innovation innovation, @NotNull SplittableRandom random) {
+		return create(from, to, innovation, Random.nextFloat(random));
+	}
+
+	/**
+	 * Create a new {@link Connection} between {@code from} and {@code to} with the given
+	 * {@code weight} and an existing {@code innovation}.
+	 *
+	 * @param from The source {@link Node} of the {@link Connection}.
+	 * @param to The end {@link Node} of the {@link Connection}.
+	 * @param innovation The innovation of the {@link Connection}.
+	 * @param weight The connection weight.
+	 * @return The newly created {@link Connection}.
+	 */
+	public static Connection create(Node from, Node to, Innovation innovation, float weight) {
+		return new Connection(from, to, weight, innovation, true);
+	}
+
 	/**
 	 * Create a new {@link Connection} between {@code from} and {@code to} with the given {@code weight}.
 	 *
@@ -109,9 +140,9 @@ public class Connection {
 		return "Connection{" +
 			"from=" + from +
 			", to=" + to +
-			", weight=" + weight +
+			", weight=" + getWeight() +
 			", innovation=" + innovation +
-			", enabled=" + enabled +
+			", enabled=" + isEnabled() +
 			'}';
 	}
 }
@@ -0,0 +1,219 @@
+package com.danielbulger.neat;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The connection genes of a {@link Genome} stored as primitive arrays ordered by innovation.
+ * <p>
+ * Each gene is an innovation id, the index of the from and to {@link Node} in the
+ * {@link NodeGenes} of the same genome, a weight and an enabled flag, all of which share the same index.
+ * <p>
+ * A copy shares the arrays of the original until either of them is modified, and then only the
+ * arrays being written to are copied. The topology, weights and enabled flags are copied
+ * independently, so mutating the weights of a copy never copies its topology.
+ */
+public final class ConnectionGenes {
+
+	private int size;
+	private int[] innovations;
+	private int[] from;
+	private int[] to;
+	private float[] weights;
+	private BitSet enabled;
+	private volatile boolean topologyShared;
+	private volatile boolean weightsShared;
+	private volatile boolean enabledShared;
+
+	ConnectionGenes() {
+		this(8);
+	}
+
+	ConnectionGenes(int capacity) {
+		this.innovations = new int[capacity];
+		this.from = new int[capacity];
+		this.to = new int[capacity];
+		this.weights = new float[capacity];
+		this.enabled = new BitSet(capacity);
+	}
+
+	ConnectionGenes(@NotNull ConnectionGenes other) {
+		// Both sides now have to copy an array before writing to it.
+		other.topologyShared = true;
+		other.weightsShared = true;
+		other.enabledShared = true;
+
+		this.size = other.size;
+		this.innovations = other.innovations;
+		this.from = other.from;
+		this.to = other.to;
+		this.weights = other.weights;
+		this.enabled = other.enabled;
+		this.topologyShared = true;
+		this.weightsShared = true;
+		this.enabledShared = true;
+	}
+
+	@Contract(pure = true)
+	public int size() {
+		return size;
+	}
+
+	@Contract(pure = true)
+	public int getInnovation(int index) {
+		return innovations[index];
+	}
+
+	/**
+	 * @return The index of the from node in the {@link NodeGenes}.
+	 */
+	@Contract(pure = true)
+	public int getFrom(int index) {
+		return from[index];
+	}
+
+	/**
+	 * @return The index of the to node in the {@link NodeGenes}.
+	 */
+	@Contract(pure = true)
+	public int getTo(int index) {
+		return to[index];
+	}
+
+	@Contract(pure = true)
+	public float getWeight(int index) {
+		return weights[index];
+	}
+
+	@Contract(pure = true)
+	public boolean isEnabled(int index) {
+		return enabled.get(index);
+	}
+
+	@Contract(pure = true)
+	public int countEnabled() {
+		return enabled.cardinality();
+	}
+
+	/**
+	 * @return The index of the {@code n}th enabled gene.
+	 */
+	@Contract(pure = true)
+	public int getEnabledIndex(int n) {
+		int index = enabled.nextSetBit(0);
+
+		for (int i = 0; i < n && index >= 0; ++i) {
+			index = enabled.nextSetBit(index + 1);
+		}
+
+		if (index < 0) {
+			throw new IndexOutOfBoundsException(String.format("No enabled gene %d", n));
+		}
+
+		return index;
+	}
+
+	/**
+	 * @return The index of the gene with the {@code innovation}, or a negative value if there is none.
+	 */
+	@Contract(pure = true)
+	public int indexOf(int innovation) {
+		// New genes almost always have the newest innovation so check the end first.
+		if (size > 0 && innovations[size - 1] == innovation) {
+			return size - 1;
+		}
+
+		return Arrays.binarySearch(innovations, 0, size, innovation);
+	}
+
+	/**
+	 * Insert a gene in innovation order, replacing any existing gene with the same {@code innovation}.
+	 *
+	 * @return The index of the gene.
+	 */
+	int add(int innovation, int from, int to, float weight, boolean enabled) {
+
+		int index;
+
+		if (size == 0 || innovations[size - 1] < innovation) {
+			index = size;
+		} else {
+			index = Arrays.binarySearch(innovations, 0, size, innovation);
+		}
+
+		final boolean insert = index < 0 || index == size;
+
+		copyTopology(insert && size == innovations.length ? size * 2 : innovations.length);
+		copyWeights();
+		copyEnabled();
+
+		if (insert) {
+
+			index = index < 0 ? -(index + 1) : index;
+
+			final int length = size - index;
+			System.arraycopy(innovations, index, innovations, index + 1, length);
+			System.arraycopy(this.from, index, this.from, index + 1, length);
+			System.arraycopy(this.to, index, this.to, index + 1, length);
+			System.arraycopy(weights, index, weights, index + 1, length);
+
+			for (int i = size; i > index; --i) {
+				this.enabled.set(i, this.enabled.get(i - 1));
+			}
+
+			++size;
+		}
+
+		innovations[index] = innovation;
+		this.from[index] = from;
+		this.to[index] = to;
+		this.weights[index] = weight;
+		this.enabled.set(index, enabled);
+
+		return index;
+	}
+
+	void setWeight(int index, float weight) {
+		copyWeights();
+		weights[index] = weight;
+	}
+
+	void setEnabled(int index, boolean enabled) {
+		copyEnabled();
+		this.enabled.set(index, enabled);
+	}
+
+	/**
+	 * Take a private copy of the innovation, from and to arrays if they are shared or need to grow.
+	 */
+	private void copyTopology(int capacity) {
+		if (topologyShared || capacity != innovations.length) {
+			innovations = Arrays.copyOf(innovations, capacity);
+			from = Arrays.copyOf(from, capacity);
+			to = Arrays.copyOf(to, capacity);
+			topologyShared = false;
+		}
+
+		if (capacity != weights.length) {
+			weights = Arrays.copyOf(weights, capacity);
+			weightsShared = false;
+		}
+	}
+
+	private void copyWeights() {
+		if (weightsShared) {
+			weights = weights.clone();
+			weightsShared = false;
+		}
+	}
+
+	private void copyEnabled() {
+		if (enabledShared) {
+			enabled = (BitSet) enabled.clone();
+			enabledShared = false;
+		}
+	}
+}
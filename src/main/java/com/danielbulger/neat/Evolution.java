@@ -1,56 +1,314 @@
 package com.danielbulger.neat;
 
+import com.danielbulger.neat.evaluate.FitnessCache;
+import com.danielbulger.neat.evaluate.FitnessFunction;
+import com.danielbulger.neat.evaluate.PopulationEvaluator;
 import com.danielbulger.neat.evaluate.SpeciesClassifier;
 import com.danielbulger.neat.mate.CloneMate;
 import com.danielbulger.neat.mate.CrossoverMate;
 import com.danielbulger.neat.mate.Mate;
+import com.danielbulger.neat.metrics.*;
 import com.danielbulger.neat.mutation.AddConnectionMutation;
 import com.danielbulger.neat.mutation.AddNodeMutation;
 import com.danielbulger.neat.mutation.ConnectionWeightMutation;
 import com.danielbulger.neat.mutation.Mutation;
 import com.danielbulger.neat.select.Select;
+import com.danielbulger.neat.util.Random;
+import com.danielbulger.neat.util.SeedSequence;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 public class Evolution {
 
+	private static final Logger LOG = LoggerFactory.getLogger(Evolution.class);
+
 	private final SpeciesClassifier speciesClassifier;
 	private final Select genomeSelect;
 	private final Map<Mate, Float> mateStrategy;
-	private final Map<Mutation, Float> mutationStrategy = new HashMap<>();
+	private final Map<Mutation, Float> mutationStrategy = new LinkedHashMap<>();
+	private final EvolutionContext context;
+	private final InnovationRegistry innovations;
 	private final Population population;
+	private final FitnessFunction fitnessFunction;
+	private final PopulationEvaluator populationEvaluator;
+	private final ExecutorService executor;
+	private final boolean memoiseFitness;
+	private final FitnessCache fitnessCache;
+	private final PhaseTimer phaseTimer = new PhaseTimer();
+	private final List<GenerationListener> listeners = new CopyOnWriteArrayList<>();
+	private SeedSequence seeds;
+	private int generation;
 
 	public Evolution(
 		final @NotNull Properties properties,
 		final @NotNull SpeciesClassifier speciesClassifier,
 		final @NotNull Select genomeSelect
+	) {
+		this(properties, speciesClassifier, genomeSelect, null, ForkJoinPool.commonPool());
+	}
+
+	public Evolution(
+		final @NotNull Properties properties,
+		final @NotNull SpeciesClassifier speciesClassifier,
+		final @NotNull Select genomeSelect,
+		final @NotNull FitnessFunction fitnessFunction
+	) {
+		this(properties, speciesClassifier, genomeSelect, Objects.requireNonNull(fitnessFunction), ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param fitnessFunction The function used to score each {@link Genome} before every generation, if
+	 * {@code null} the caller is responsible for setting the fitness of each {@link Genome}.
+	 * @param executor The executor used to run the evaluation, for example a {@link ForkJoinPool},
+	 * a fixed thread pool or a virtual thread per task executor. The caller remains the owner of it.
+	 */
+	public Evolution(
+		final @NotNull Properties properties,
+		final @NotNull SpeciesClassifier speciesClassifier,
+		final @NotNull Select genomeSelect,
+		final @Nullable FitnessFunction fitnessFunction,
+		final @NotNull ExecutorService executor
+	) {
+		this(properties, speciesClassifier, genomeSelect, fitnessFunction, null, executor);
+	}
+
+	/**
+	 * @param populationEvaluator The evaluator that scores the whole population before every generation,
+	 * for example a {@link com.danielbulger.neat.worker.WorkerPool} that evaluates in separate processes.
+	 * If set it is used instead of the {@code fitnessFunction}.
+	 * @param executor The executor used to run the in process evaluation and reproduction.
+	 */
+	public Evolution(
+		final @NotNull Properties properties,
+		final @NotNull SpeciesClassifier speciesClassifier,
+		final @NotNull Select genomeSelect,
+		final @Nullable FitnessFunction fitnessFunction,
+		final @Nullable PopulationEvaluator populationEvaluator,
+		final @NotNull ExecutorService executor
+	) {
+		this(properties, speciesClassifier, genomeSelect, fitnessFunction, populationEvaluator, executor, new EvolutionContext());
+	}
+
+	/**
+	 * @param context The context that numbers the nodes and innovations of the run. Runs that exchange
+	 * genomes must use contexts with the same stride and different offsets, see {@link EvolutionContext}.
+	 */
+	public Evolution(
+		final @NotNull Properties properties,
+		final @NotNull SpeciesClassifier speciesClassifier,
+		final @NotNull Select genomeSelect,
+		final @Nullable FitnessFunction fitnessFunction,
+		final @Nullable PopulationEvaluator populationEvaluator,
+		final @NotNull ExecutorService executor,
+		final @NotNull EvolutionContext context
 	) {
 		final Config config = new Config(properties);
+		this.context = Objects.requireNonNull(context);
+		this.innovations = new InnovationRegistry(context);
 		this.genomeSelect = Objects.requireNonNull(genomeSelect);
 		this.speciesClassifier = Objects.requireNonNull(speciesClassifier);
+		this.fitnessFunction = fitnessFunction;
+		this.populationEvaluator = populationEvaluator;
+		this.executor = Objects.requireNonNull(executor);
+		this.seeds = new SeedSequence(config.getSeed());
+		this.memoiseFitness = config.isMemoiseFitness();
+		this.fitnessCache = memoiseFitness && config.getFitnessCacheSize() > 0
+			? new FitnessCache(config.getFitnessCacheSize())
+			: null;
 		this.initialiseMutations(config);
 		this.mateStrategy = this.initialiseMates(config);
 		this.population = new Population(config, this);
 		this.population.populate(config.getPopulationSize());
+
+		LOG.info("Evolving with seed {}", seeds.getSeed());
 	}
 
 	public Genome evolve() {
+		if (fitnessFunction != null || populationEvaluator != null) {
+			evaluate();
+		}
+
+		// Keep the evaluated generation for the metrics as breeding replaces it.
+		final List<Genome> evaluated = listeners.isEmpty() ? null : new ArrayList<>(population.getGenomes());
+
 		population.makeNextGeneration();
+		++generation;
+
+		final long[] phaseNanos = phaseTimer.drain();
+
+		if (evaluated != null) {
+			publish(evaluated, phaseNanos);
+		}
+
 		return population.getBest();
 	}
 
+	private void publish(final @NotNull List<Genome> evaluated, final @NotNull long[] phaseNanos) {
+
+		final int[] nodeCounts = new int[evaluated.size()];
+		final int[] connectionCounts = new int[evaluated.size()];
+		final float[] fitness = new float[evaluated.size()];
+
+		for (int i = 0; i < fitness.length; ++i) {
+			final Genome genome = evaluated.get(i);
+			nodeCounts[i] = genome.getNodeGenes().size();
+			connectionCounts[i] = genome.getConnectionGenes().size();
+			fitness[i] = genome.getFitness();
+		}
+
+		final GenerationMetrics metrics = new GenerationMetrics(
+			generation,
+			phaseNanos,
+			population.getSpeciesSizes(),
+			new Histogram(nodeCounts),
+			new Histogram(connectionCounts),
+			new Distribution(fitness),
+			innovations.getNumInnovations(),
+			innovations.getNumSplits()
+		);
+
+		for (final GenerationListener listener : listeners) {
+			listener.onGeneration(metrics);
+		}
+	}
+
+	/**
+	 * Be notified with the {@link GenerationMetrics} of every generation. The metrics are only
+	 * gathered while there is at least one listener.
+	 */
+	public void addListener(final @NotNull GenerationListener listener) {
+		listeners.add(Objects.requireNonNull(listener));
+	}
+
+	public void removeListener(final @NotNull GenerationListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Score every {@link Genome} in the current generation with the {@link PopulationEvaluator},
+	 * or otherwise the {@link FitnessFunction}. The {@link FitnessFunction} is run on chunks of
+	 * the population which are evaluated concurrently on the executor.
+	 * <p>
+	 * Unless disabled with {@code fitness.memoise}, genomes that are unchanged since they were
+	 * evaluated, such as the species champions, and genomes identical to one in the
+	 * {@link FitnessCache} keep their fitness without being evaluated again.
+	 */
+	public void evaluate() {
+
+		if (fitnessFunction == null && populationEvaluator == null) {
+			throw new IllegalStateException("No FitnessFunction has been set");
+		}
+
+		final long started = System.nanoTime();
+		final List<Genome> genomes = getUnevaluated();
+
+		if (populationEvaluator != null) {
+			populationEvaluator.evaluate(genomes);
+		} else {
+			final List<Callable<Void>> tasks = new ArrayList<>();
+
+			forEachChunk(genomes.size(), (start, end) -> tasks.add(() -> {
+				for (int i = start; i < end; ++i) {
+					final Genome genome = genomes.get(i);
+					genome.setFitness(fitnessFunction.evaluate(genome));
+				}
+				return null;
+			}));
+
+			invokeAll(tasks);
+		}
+
+		for (final Genome genome : genomes) {
+			genome.setEvaluated(true);
+
+			if (fitnessCache != null) {
+				fitnessCache.put(genome.getStructuralHash(), genome.getFitness());
+			}
+		}
+
+		phaseTimer.record(Phase.EVALUATE, started);
+	}
+
+	/**
+	 * @return The genomes of the current generation whose fitness can't be reused.
+	 */
+	@NotNull
+	private List<Genome> getUnevaluated() {
+
+		final List<Genome> genomes = population.getGenomes();
+
+		if (!memoiseFitness) {
+			return genomes;
+		}
+
+		final List<Genome> unevaluated = new ArrayList<>();
+
+		for (final Genome genome : genomes) {
+			if (genome.isEvaluated()) {
+				continue;
+			}
+
+			final Float fitness = fitnessCache == null ? null : fitnessCache.get(genome.getStructuralHash());
+
+			if (fitness == null) {
+				unevaluated.add(genome);
+			} else {
+				genome.setFitness(fitness);
+				genome.setEvaluated(true);
+			}
+		}
+
+		return unevaluated;
+	}
+
+	/**
+	 * Split the range {@code [0, size)} into roughly four chunks per processor.
+	 */
+	protected void forEachChunk(int size, ChunkConsumer consumer) {
+		final int chunks = Runtime.getRuntime().availableProcessors() * 4;
+		final int chunkSize = Math.max(1, (size + chunks - 1) / chunks);
+
+		for (int start = 0; start < size; start += chunkSize) {
+			consumer.accept(start, Math.min(size, start + chunkSize));
+		}
+	}
+
+	/**
+	 * Run all the {@code tasks} on the executor and wait for them to complete.
+	 */
+	protected void invokeAll(final @NotNull Collection<? extends Callable<Void>> tasks) {
+		try {
+			for (final Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for tasks", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Task failed", e.getCause());
+		}
+	}
+
+	protected interface ChunkConsumer {
+
+		void accept(int start, int end);
+	}
+
 	private void initialiseMutations(final Config config) {
-		mutationStrategy.put(new AddConnectionMutation(), config.getMutateAddConnectionChance());
-		mutationStrategy.put(new AddNodeMutation(), config.getMutateAddNodeChance());
+		mutationStrategy.put(new AddConnectionMutation(innovations), config.getMutateAddConnectionChance());
+		mutationStrategy.put(new AddNodeMutation(innovations), config.getMutateAddNodeChance());
 		mutationStrategy.put(new ConnectionWeightMutation(), config.getMutateWeightChance());
 	}
 
 	private Map<Mate, Float> initialiseMates(final Config config) {
-		final Map<Mate, Float> unsorted = new HashMap<>();
+		final Map<Mate, Float> unsorted = new LinkedHashMap<>();
 		unsorted.put(new CloneMate(), config.getCloneMateChance());
 		unsorted.put(
 			new CrossoverMate(config.getCrossoverDisableConnectionChance()),
@@ -58,7 +316,8 @@ public class Evolution {
 		);
 
 		// Since the ordering of the probability may be important,
-		// we sorted them in ascending chance.
+		// we sorted them in ascending chance, which also keeps the
+		// choice the same on every run with the same seed.
 
 		return unsorted.entrySet()
 			.stream()
@@ -66,22 +325,32 @@ public class Evolution {
 			.collect(Collectors.toMap(
 				Map.Entry::getKey,
 				Map.Entry::getValue,
-				(e1, e2) -> e2, HashMap::new
+				(e1, e2) -> e2, LinkedHashMap::new
 			));
 	}
 
-	@Contract(mutates = "param1")
-	protected void mutate(final Genome genome) {
+	/**
+	 * Randomly apply either the structural or the other mutations to the {@code genome}.
+	 *
+	 * @see Mutation#isStructural()
+	 */
+	@Contract(mutates = "param1, param2")
+	protected void mutate(final Genome genome, final @NotNull SplittableRandom random, boolean structural) {
 		for (final Map.Entry<Mutation, Float> entry : mutationStrategy.entrySet()) {
-			final float chance = ThreadLocalRandom.current().nextFloat();
+			if (entry.getKey().isStructural() != structural) {
+				continue;
+			}
+
+			final float chance = Random.nextFloat(random);
 			if (chance < entry.getValue()) {
-				entry.getKey().mutate(genome);
+				entry.getKey().mutate(genome, random);
 			}
 		}
 	}
 
-	protected Mate getMateStrategy() {
-		final float chance = ThreadLocalRandom.current().nextFloat();
+	@Contract(mutates = "param1")
+	protected Mate getMateStrategy(final @NotNull SplittableRandom random) {
+		final float chance = Random.nextFloat(random);
 
 		float sum = 0;
 
@@ -95,6 +364,66 @@ public class Evolution {
 		throw new IllegalStateException("Unable to choose mate strategy");
 	}
 
+	/**
+	 * @return The seeds of the random streams of the current generation.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	SeedSequence getGenerationSeeds() {
+		return seeds.derive(generation);
+	}
+
+	/**
+	 * @return The seed of the run, which replays it when set as {@code evolution.seed} and the
+	 * networks are not evaluated by the vector kernel, see {@link Config#getSeed()}.
+	 */
+	@Contract(pure = true)
+	public long getSeed() {
+		return seeds.getSeed();
+	}
+
+	void setSeed(long seed) {
+		this.seeds = new SeedSequence(seed);
+	}
+
+	/**
+	 * @return The number of generations evolved so far.
+	 */
+	@Contract(pure = true)
+	public int getGeneration() {
+		return generation;
+	}
+
+	void setGeneration(int generation) {
+		this.generation = generation;
+	}
+
+	PhaseTimer getPhaseTimer() {
+		return phaseTimer;
+	}
+
+	Population getPopulation() {
+		return population;
+	}
+
+	/**
+	 * @return The fitness cache, or {@code null} if fitness is not memoised.
+	 */
+	@Nullable
+	FitnessCache getFitnessCache() {
+		return fitnessCache;
+	}
+
+	@NotNull
+	@Contract(pure = true)
+	public EvolutionContext getContext() {
+		return context;
+	}
+
+	public InnovationRegistry getInnovations() {
+		return innovations;
+	}
+
 	public Select getGenomeSelect() {
 		return genomeSelect;
 	}
@@ -0,0 +1,90 @@
+package com.danielbulger.neat;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Allocates the node ids and innovation numbers of a run.
+ * <p>
+ * Every {@link Evolution} owns a context, so independent runs in the same JVM number their
+ * structure independently, and a checkpointed run numbers it the same way when resumed.
+ * Runs that exchange genomes, such as the islands of an {@link IslandEvolution}, use contexts
+ * with the same stride and different offsets, so each allocates its own disjoint numbers however
+ * their threads interleave. The static {@link Node#create(NodeType)} and {@link Innovation#next()}
+ * are only for genomes built outside of a run.
+ */
+public final class EvolutionContext {
+
+	private final int stride;
+	private final AtomicInteger lastNodeId;
+	private final AtomicInteger lastInnovation;
+
+	/**
+	 * Create a context that numbers from 1 in steps of 1.
+	 */
+	public EvolutionContext() {
+		this(0, 1);
+	}
+
+	/**
+	 * Create a context that numbers from {@code offset + stride} in steps of {@code stride}, so the
+	 * numbers of contexts with the same stride and different offsets never collide.
+	 *
+	 * @param offset The remainder of every number divided by the {@code stride}.
+	 * @param stride The difference between consecutive numbers.
+	 */
+	public EvolutionContext(int offset, int stride) {
+		if (stride <= 0) {
+			throw new IllegalArgumentException(String.format("Expected a positive stride got %d", stride));
+		}
+
+		if (offset < 0 || offset >= stride) {
+			throw new IllegalArgumentException(String.format("Expected an offset in [0, %d) got %d", stride, offset));
+		}
+
+		this.stride = stride;
+		this.lastNodeId = new AtomicInteger(offset);
+		this.lastInnovation = new AtomicInteger(offset);
+	}
+
+	/**
+	 * @return The id of a new node.
+	 */
+	public int nextNodeId() {
+		return lastNodeId.addAndGet(stride);
+	}
+
+	/**
+	 * @return A new innovation.
+	 */
+	@NotNull
+	public Innovation nextInnovation() {
+		return new Innovation(lastInnovation.addAndGet(stride));
+	}
+
+	/**
+	 * @return The id of the most recently created node.
+	 */
+	@Contract(pure = true)
+	public int getLastNodeId() {
+		return lastNodeId.get();
+	}
+
+	/**
+	 * @return The id of the most recent innovation.
+	 */
+	@Contract(pure = true)
+	public int getLastInnovation() {
+		return lastInnovation.get();
+	}
+
+	/**
+	 * Continue numbering after the given node id and innovation, used when resuming a run.
+	 */
+	void restore(int lastNodeId, int lastInnovation) {
+		this.lastNodeId.set(lastNodeId);
+		this.lastInnovation.set(lastInnovation);
+	}
+}
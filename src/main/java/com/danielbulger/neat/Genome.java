@@ -1,40 +1,90 @@
 package com.danielbulger.neat;
 
+import com.danielbulger.neat.activation.Activation;
+import com.danielbulger.neat.activation.ActivationFunction;
+import com.danielbulger.neat.network.Network;
+import com.danielbulger.neat.util.LongHashSet;
+import com.danielbulger.neat.util.MathUtil;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
-import java.util.stream.Collectors;
-
+import java.util.function.IntSupplier;
+
+/**
+ * A genome stores its genes in {@link NodeGenes} and {@link ConnectionGenes}, flat primitive arrays
+ * of nodes in the order they were added and connections ordered by innovation. Connections refer to
+ * their nodes by the local index in the {@link NodeGenes}, and the global node ids are only used
+ * to line up different genomes. The {@link Node} and {@link Connection} collections returned by
+ * {@link #getNodes()} and {@link #getConnections()} are views built on demand over those arrays,
+ * changing the weight or enabled flag of a viewed {@link Connection} changes the gene.
+ */
 public class Genome implements Comparable<Genome> {
 
-	private final NavigableMap<Integer, Node> nodes = new TreeMap<>();
-	private final EnumMap<NodeType, List<Node>> nodeTypes = new EnumMap<>(NodeType.class);
-	private final NavigableMap<Innovation, Connection> connections = new TreeMap<>();
+	private final NodeGenes nodeGenes;
+	private final ConnectionGenes connectionGenes;
+	private final LongHashSet edges;
+	private ActivationFunction activationFunction = Activation.SIGMOID;
 	private float fitness;
+	private boolean evaluated;
+	private Network network;
+	private volatile NavigableMap<Integer, Node> nodes;
+	private volatile EnumMap<NodeType, List<Node>> nodeTypes;
+	private volatile NavigableMap<Innovation, Connection> connections;
 
 	public Genome() {
+		this(new NodeGenes(), new ConnectionGenes(), new LongHashSet());
 	}
 
-	public Genome(Genome parent) {
-
-		for (final Node node : parent.nodes.values()) {
-			addNode(new Node(node));
-		}
+	private Genome(
+		final @NotNull NodeGenes nodeGenes,
+		final @NotNull ConnectionGenes connectionGenes,
+		final @NotNull LongHashSet edges
+	) {
+		this.nodeGenes = nodeGenes;
+		this.connectionGenes = connectionGenes;
+		this.edges = edges;
+	}
 
-		// Make sure we copy the node/connections so updating the value doesn't affect the
-		// referenced parent node.
-		for (final Map.Entry<Innovation, Connection> entry : parent.connections.entrySet()) {
-			final Connection connection = entry.getValue();
-			final Node from = nodes.get(connection.getFrom().getId());
-			final Node to = nodes.get(connection.getTo().getId());
-			addConnection(new Connection(from, to, connection.getWeight(), entry.getKey(), connection.isEnabled()));
-		}
+	/**
+	 * Create an empty {@link Genome} with room for the given number of genes, so a genome of
+	 * a known size can be built without growing its arrays.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public static Genome withCapacity(int numNodes, int numConnections) {
+		return new Genome(
+			new NodeGenes(Math.max(numNodes, 1)),
+			new ConnectionGenes(Math.max(numConnections, 1)),
+			new LongHashSet(numConnections)
+		);
+	}
 
-		fitness = parent.fitness;
+	public Genome(Genome parent) {
+		// The arrays are shared with the parent until either genome writes to them, which copies them first.
+		this.nodeGenes = new NodeGenes(parent.nodeGenes);
+		this.connectionGenes = new ConnectionGenes(parent.connectionGenes);
+		this.edges = new LongHashSet(parent.edges);
+		this.activationFunction = parent.activationFunction;
+		this.fitness = parent.fitness;
+		this.evaluated = parent.evaluated;
 	}
 
 	public Genome(int numInputs, int numOutputs) {
+		this(numInputs, numOutputs, Node::nextId);
+	}
+
+	/**
+	 * Create a {@link Genome} of only input and output nodes, numbered by the {@code context}.
+	 */
+	public Genome(int numInputs, int numOutputs, final @NotNull EvolutionContext context) {
+		this(numInputs, numOutputs, context::nextNodeId);
+	}
+
+	private Genome(int numInputs, int numOutputs, final @NotNull IntSupplier ids) {
+		this();
+
 		if (numInputs <= 0) {
 			throw new IllegalArgumentException("must have at least 1 input");
 		}
@@ -43,7 +93,7 @@ public class Genome implements Comparable<Genome> {
 			throw new IllegalArgumentException("must have at least 1 output");
 		}
 
-		this.initialiseNodes(numInputs, numOutputs);
+		this.initialiseNodes(numInputs, numOutputs, ids);
 	}
 
 	public float[] feedForward(float[] values) {
@@ -51,95 +101,173 @@ public class Genome implements Comparable<Genome> {
 			throw new NullPointerException();
 		}
 
-		final List<Node> inputNodes = nodeTypes.get(NodeType.INPUT);
-
-		if (values.length != inputNodes.size()) {
-			throw new IllegalArgumentException();
-		}
-
-		// Clear the previous network state.
-		for (final Node node : nodes.values()) {
-			node.reset();
-		}
-
-		for (int i = 0; i < inputNodes.size(); ++i) {
-			inputNodes.get(i).setValue(values[i]);
-		}
+		return getNetwork().activate(values);
+	}
 
-		for (final Node node : inputNodes) {
-			node.process();
+	/**
+	 * Feed many samples through the network of this {@link Genome}.
+	 *
+	 * @param values The row-major input values, {@link #getNumInputs()} values for each sample.
+	 * @param output The row-major buffer to write {@link #getNumOutputs()} values for each sample into.
+	 * @see Network#activateBatch(float[], float[])
+	 */
+	public void feedForwardBatch(float[] values, float[] output) {
+		if (values == null || output == null) {
+			throw new NullPointerException();
 		}
 
-		final List<Node> outputNodes = nodeTypes.get(NodeType.OUTPUT);
-
-		final float[] output = new float[outputNodes.size()];
+		getNetwork().activateBatch(values, output);
+	}
 
-		for (int i = 0; i < output.length; ++i) {
-			output[i] = outputNodes.get(i).getValue();
+	/**
+	 * Get the {@link Network} of this {@link Genome}, chosen by {@link Network#compile(Genome)}.
+	 * The network is compiled on first use and reused until the genome is changed through
+	 * {@link #addNode(Node)}, {@link #addConnection(Connection)}, {@link #setWeight(Connection, float)}
+	 * or {@link #setEnabled(Connection, boolean)}.
+	 *
+	 * @return The compiled network.
+	 */
+	@NotNull
+	public Network getNetwork() {
+		if (network == null) {
+			network = Network.compile(this);
 		}
 
-		return output;
+		return network;
 	}
 
-	private void initialiseNodes(int numInputs, int numOutputs) {
+	private void initialiseNodes(int numInputs, int numOutputs, final @NotNull IntSupplier ids) {
 
 		for (int i = 0; i < numInputs; ++i) {
-			addNode(Node.create(NodeType.INPUT));
+			addNode(ids.getAsInt(), NodeType.INPUT);
 		}
 
 		for (int i = 0; i < numOutputs; ++i) {
-			addNode(Node.create(NodeType.OUTPUT));
+			addNode(ids.getAsInt(), NodeType.OUTPUT);
 		}
 	}
 
 	@Contract(pure = true)
 	public boolean isConnected(Node from, Node to) {
+		return isConnected(from.getId(), to.getId());
+	}
 
-		for (final Connection connection : connections.values()) {
-			if ((connection.getTo().equals(to) && connection.getFrom().equals(from)) ||
-				(connection.getTo().equals(from) && connection.getFrom().equals(to))) {
-				return true;
-			}
-		}
+	/**
+	 * @return {@code true} if there is a connection in either direction between the nodes with the ids.
+	 */
+	@Contract(pure = true)
+	public boolean isConnected(int from, int to) {
+		final int fromIndex = nodeGenes.indexOf(from);
+		final int toIndex = nodeGenes.indexOf(to);
+		return fromIndex >= 0 && toIndex >= 0 && isLocallyConnected(fromIndex, toIndex);
+	}
+
+	/**
+	 * @return {@code true} if there is a connection in either direction between the nodes at the indices.
+	 */
+	@Contract(pure = true)
+	public boolean isLocallyConnected(int fromIndex, int toIndex) {
+		return edges.contains(edgeKey(fromIndex, toIndex));
+	}
 
-		return false;
+	/**
+	 * Pack the two node indices into an edge key that is the same regardless of direction.
+	 */
+	@Contract(pure = true)
+	private static long edgeKey(int from, int to) {
+		return LongHashSet.pack(Math.min(from, to), Math.max(from, to));
+	}
+
+	@Contract(pure = true)
+	public boolean hasNode(int id) {
+		return nodeGenes.indexOf(id) >= 0;
 	}
 
 	public void addNode(final @NotNull Node node) {
-		if (nodes.containsKey(node.getId())) {
-			throw new IllegalArgumentException();
+		addNode(node.getId(), node.getType());
+	}
+
+	/**
+	 * @return The index of the new node in the {@link NodeGenes}.
+	 */
+	public int addNode(int id, final @NotNull NodeType type) {
+		final int index = nodeGenes.add(id, type);
+		nodes = null;
+		nodeTypes = null;
+		connections = null;
+		modified();
+		return index;
+	}
+
+	public void addConnection(final @NotNull Connection connection) {
+
+		if (isConnected(connection.getFrom(), connection.getTo())) {
+			return;
 		}
 
-		nodes.put(node.getId(), node);
+		addGene(
+			connection.getInnovation().getId(),
+			localIndexOf(connection.getFrom()),
+			localIndexOf(connection.getTo()),
+			connection.getWeight(),
+			connection.isEnabled()
+		);
+	}
 
-		List<Node> nodes = nodeTypes.get(node.getType());
+	/**
+	 * @return The index of the {@code node}, adding it if it isn't part of this {@link Genome}.
+	 */
+	private int localIndexOf(final @NotNull Node node) {
+		final int index = nodeGenes.indexOf(node.getId());
+		return index < 0 ? addNode(node.getId(), node.getType()) : index;
+	}
 
-		if (nodes == null) {
-			nodes = new ArrayList<>();
+	/**
+	 * Add a connection gene between the nodes with the ids {@code from} and {@code to}, which
+	 * must already be part of this {@link Genome}.
+	 */
+	public void addConnection(int innovation, int from, int to, float weight, boolean enabled) {
+
+		final int fromIndex = nodeGenes.indexOf(from);
+		final int toIndex = nodeGenes.indexOf(to);
+
+		if (fromIndex < 0 || toIndex < 0) {
+			throw new IllegalArgumentException(String.format("Unknown node in connection %d -> %d", from, to));
 		}
 
-		nodes.add(node);
-		nodeTypes.put(node.getType(), nodes);
+		addLocalConnection(innovation, fromIndex, toIndex, weight, enabled);
 	}
 
-	public void addConnection(final @NotNull Connection connection) {
+	/**
+	 * Add a connection gene between the nodes at the indices {@code fromIndex} and {@code toIndex}
+	 * of the {@link NodeGenes}, unless they are already connected.
+	 */
+	public void addLocalConnection(int innovation, int fromIndex, int toIndex, float weight, boolean enabled) {
 
-		if (isConnected(connection.getFrom(), connection.getTo())) {
+		if (fromIndex < 0 || fromIndex >= nodeGenes.size() || toIndex < 0 || toIndex >= nodeGenes.size()) {
+			throw new IllegalArgumentException(String.format("Unknown node index in connection %d -> %d", fromIndex, toIndex));
+		}
+
+		if (isLocallyConnected(fromIndex, toIndex)) {
 			return;
 		}
 
-		connections.put(connection.getInnovation(), connection);
+		addGene(innovation, fromIndex, toIndex, weight, enabled);
+	}
+
+	private void addGene(int innovation, int fromIndex, int toIndex, float weight, boolean enabled) {
 
-		if (!nodes.containsKey(connection.getFrom().getId())) {
-			addNode(connection.getFrom());
-		}
+		final int replaced = connectionGenes.indexOf(innovation);
 
-		if (!nodes.containsKey(connection.getTo().getId())) {
-			addNode(connection.getTo());
+		if (replaced >= 0) {
+			// The gene with the same innovation may join other nodes, which are no longer connected.
+			edges.remove(edgeKey(connectionGenes.getFrom(replaced), connectionGenes.getTo(replaced)));
 		}
 
-		connection.getFrom().addOutgoingConnection(connection);
-		connection.getTo().addIncomingConnection(connection);
+		connectionGenes.add(innovation, fromIndex, toIndex, weight, enabled);
+		edges.add(edgeKey(fromIndex, toIndex));
+		connections = null;
+		modified();
 	}
 
 	public void addConnections(final @NotNull Connection... elements) {
@@ -148,29 +276,217 @@ public class Genome implements Comparable<Genome> {
 		}
 	}
 
+	public void setWeight(final @NotNull Connection connection, float weight) {
+		setWeight(indexOf(connection), weight);
+	}
+
+	public void setWeight(int index, float weight) {
+		connectionGenes.setWeight(index, weight);
+		modified();
+	}
+
+	public void setEnabled(final @NotNull Connection connection, boolean enabled) {
+		setEnabled(indexOf(connection), enabled);
+	}
+
+	public void setEnabled(int index, boolean enabled) {
+		connectionGenes.setEnabled(index, enabled);
+		modified();
+	}
+
+	@Contract(pure = true)
+	private int indexOf(final @NotNull Connection connection) {
+		final int index = connectionGenes.indexOf(connection.getInnovation().getId());
+
+		if (index < 0) {
+			throw new IllegalArgumentException("Connection is not part of the Genome " + connection);
+		}
+
+		return index;
+	}
+
 	@NotNull
 	@Contract(pure = true)
 	public List<Connection> getActiveConnections() {
-		return connections.values()
-			.stream()
-			.filter(Connection::isEnabled)
-			.collect(Collectors.toList());
+		final List<Connection> active = new ArrayList<>(connectionGenes.countEnabled());
+
+		for (final Connection connection : getConnections().values()) {
+			if (connection.isEnabled()) {
+				active.add(connection);
+			}
+		}
+
+		return active;
 	}
 
 	@NotNull
 	@Contract(pure = true)
 	public NavigableMap<Innovation, Connection> getConnections() {
-		return connections;
+		NavigableMap<Innovation, Connection> view = connections;
+
+		if (view == null) {
+			final NavigableMap<Integer, Node> nodes = getNodes();
+			view = new TreeMap<>();
+
+			for (int i = 0; i < connectionGenes.size(); ++i) {
+				final Innovation innovation = new Innovation(connectionGenes.getInnovation(i));
+				view.put(innovation, new GeneConnection(
+					nodes.get(nodeGenes.getId(connectionGenes.getFrom(i))),
+					nodes.get(nodeGenes.getId(connectionGenes.getTo(i))),
+					innovation
+				));
+			}
+
+			connections = view = Collections.unmodifiableNavigableMap(view);
+		}
+
+		return view;
 	}
 
 	@NotNull
 	@Contract(pure = true)
 	public NavigableMap<Integer, Node> getNodes() {
-		return nodes;
+		NavigableMap<Integer, Node> view = nodes;
+
+		if (view == null) {
+			view = new TreeMap<>();
+
+			for (int i = 0; i < nodeGenes.size(); ++i) {
+				view.put(nodeGenes.getId(i), new Node(nodeGenes.getId(i), nodeGenes.getType(i)));
+			}
+
+			nodes = view = Collections.unmodifiableNavigableMap(view);
+		}
+
+		return view;
 	}
 
+	@NotNull
 	public Collection<Node> getNodeByType(NodeType type) {
-		return nodeTypes.get(type);
+		EnumMap<NodeType, List<Node>> view = nodeTypes;
+
+		if (view == null) {
+			view = new EnumMap<>(NodeType.class);
+
+			for (final NodeType nodeType : NodeType.values()) {
+				view.put(nodeType, new ArrayList<>(nodeGenes.count(nodeType)));
+			}
+
+			for (final Node node : getNodes().values()) {
+				view.get(node.getType()).add(node);
+			}
+
+			nodeTypes = view;
+		}
+
+		return Collections.unmodifiableList(view.get(type));
+	}
+
+	/**
+	 * @return The activation function used by every node that doesn't override it.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public ActivationFunction getActivationFunction() {
+		return activationFunction;
+	}
+
+	public void setActivationFunction(final @NotNull ActivationFunction activationFunction) {
+		this.activationFunction = Objects.requireNonNull(activationFunction);
+		modified();
+	}
+
+	/**
+	 * @return The activation function used by the node with the {@code id}.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public ActivationFunction getActivationFunction(int id) {
+		final ActivationFunction activation = nodeGenes.getActivationFunction(nodeIndexOf(id));
+		return activation == null ? activationFunction : activation;
+	}
+
+	/**
+	 * Override the activation function of a single node, or use the default of this
+	 * {@link Genome} again if {@code activationFunction} is {@code null}.
+	 */
+	public void setActivationFunction(int id, final @Nullable ActivationFunction activationFunction) {
+		nodeGenes.setActivationFunction(nodeIndexOf(id), activationFunction);
+		modified();
+	}
+
+	@Contract(pure = true)
+	private int nodeIndexOf(int id) {
+		final int index = nodeGenes.indexOf(id);
+
+		if (index < 0) {
+			throw new IllegalArgumentException(String.format("Node %d is not part of the Genome", id));
+		}
+
+		return index;
+	}
+
+	@NotNull
+	@Contract(pure = true)
+	public NodeGenes getNodeGenes() {
+		return nodeGenes;
+	}
+
+	@NotNull
+	@Contract(pure = true)
+	public ConnectionGenes getConnectionGenes() {
+		return connectionGenes;
+	}
+
+	/**
+	 * Forget everything derived from the genes once they change.
+	 */
+	private void modified() {
+		network = null;
+		evaluated = false;
+	}
+
+	/**
+	 * @return {@code true} if the fitness was evaluated and the genes have not changed since.
+	 */
+	@Contract(pure = true)
+	public boolean isEvaluated() {
+		return evaluated;
+	}
+
+	void setEvaluated(boolean evaluated) {
+		this.evaluated = evaluated;
+	}
+
+	/**
+	 * @return A 64 bit hash of the nodes, connections, weights and activation functions, equal
+	 * for any two genomes whose networks are the same.
+	 */
+	@Contract(pure = true)
+	public long getStructuralHash() {
+
+		long hash = activationFunction.hashCode();
+
+		for (int i = 0; i < nodeGenes.size(); ++i) {
+			final ActivationFunction activation = nodeGenes.getActivationFunction(i);
+			hash = mix(hash, LongHashSet.pack(nodeGenes.getId(i), nodeGenes.getType(i).ordinal()));
+			hash = mix(hash, activation == null ? 0 : activation.hashCode());
+		}
+
+		for (int i = 0; i < connectionGenes.size(); ++i) {
+			hash = mix(hash, LongHashSet.pack(connectionGenes.getFrom(i), connectionGenes.getTo(i)));
+			hash = mix(hash, LongHashSet.pack(
+				Float.floatToIntBits(connectionGenes.getWeight(i)),
+				connectionGenes.isEnabled(i) ? 1 : 0
+			));
+		}
+
+		return MathUtil.mix64(hash);
+	}
+
+	@Contract(pure = true)
+	private static long mix(long hash, long value) {
+		return (hash ^ value) * 0x9E3779B97F4A7C15L;
 	}
 
 	public float getFitness() {
@@ -187,19 +503,49 @@ public class Genome implements Comparable<Genome> {
 	}
 
 	public int getNumInputs() {
-		return nodeTypes.get(NodeType.INPUT).size();
+		return nodeGenes.count(NodeType.INPUT);
 	}
 
 	public int getNumOutputs() {
-		return nodeTypes.get(NodeType.OUTPUT).size();
+		return nodeGenes.count(NodeType.OUTPUT);
 	}
 
 	@Override
 	public String toString() {
 		return "Genome{" +
-			"nodes=" + nodes +
-			", connections=" + connections +
+			"nodes=" + getNodes() +
+			", connections=" + getConnections() +
 			", fitness=" + fitness +
 			'}';
 	}
+
+	/**
+	 * A {@link Connection} that reads and writes its weight and enabled flag through to the genes.
+	 */
+	private final class GeneConnection extends Connection {
+
+		private GeneConnection(Node from, Node to, Innovation innovation) {
+			super(from, to, 0, innovation, true);
+		}
+
+		@Override
+		public float getWeight() {
+			return connectionGenes.getWeight(indexOf(this));
+		}
+
+		@Override
+		public void setWeight(float weight) {
+			Genome.this.setWeight(this, weight);
+		}
+
+		@Override
+		public boolean isEnabled() {
+			return connectionGenes.isEnabled(indexOf(this));
+		}
+
+		@Override
+		public void setEnabled(boolean enabled) {
+			Genome.this.setEnabled(this, enabled);
+		}
+	}
 }
@@ -9,6 +9,10 @@ public final class Innovation implements Comparable<Innovation> {
 
 	private static final AtomicInteger counter = new AtomicInteger(0);
 
+	/**
+	 * Create an {@link Innovation} with a new id shared by the whole JVM, for genomes built outside
+	 * of an {@link Evolution}, which numbers its innovations with its {@link EvolutionContext} instead.
+	 */
 	@NotNull
 	public static Innovation next() {
 		return new Innovation(counter.incrementAndGet());
@@ -20,6 +24,10 @@ public final class Innovation implements Comparable<Innovation> {
 		this.id = id;
 	}
 
+	public int getId() {
+		return id;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) {
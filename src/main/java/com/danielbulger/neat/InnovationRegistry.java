@@ -0,0 +1,125 @@
+package com.danielbulger.neat;
+
+import com.danielbulger.neat.util.LongHashSet;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Records the structural innovations made during a generation so the same change made to
+ * different genomes shares the same innovation number.
+ * <p>
+ * New connections are keyed by their from and to node, and new nodes by the innovation of the
+ * connection they split. The registry is safe to use concurrently and is cleared at the start
+ * of every generation.
+ */
+public final class InnovationRegistry {
+
+	private final EvolutionContext context;
+	private final ConcurrentMap<Long, Innovation> connections = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Integer, Split> splits = new ConcurrentHashMap<>();
+
+	/**
+	 * @param context The context that numbers the new nodes and innovations.
+	 */
+	public InnovationRegistry(final @NotNull EvolutionContext context) {
+		this.context = Objects.requireNonNull(context);
+	}
+
+	/**
+	 * @return The innovation of a new connection between the {@code from} and {@code to} node.
+	 */
+	@NotNull
+	public Innovation getConnection(int from, int to) {
+		return connections.computeIfAbsent(LongHashSet.pack(from, to), key -> context.nextInnovation());
+	}
+
+	/**
+	 * @return The node and connection innovations of splitting the connection with the {@code innovation}.
+	 */
+	@NotNull
+	public Split getSplit(@NotNull Innovation innovation) {
+		return getSplit(innovation.getId());
+	}
+
+	/**
+	 * @return The node and connection innovations of splitting the connection with the {@code innovation}.
+	 */
+	@NotNull
+	public Split getSplit(int innovation) {
+		return splits.computeIfAbsent(innovation, key -> new Split(
+			context.nextNodeId(),
+			context.nextInnovation(),
+			context.nextInnovation()
+		));
+	}
+
+	/**
+	 * @return The number of connection innovations created since the registry was last cleared.
+	 */
+	@Contract(pure = true)
+	public int getNumInnovations() {
+		return connections.size() + splits.size() * 2;
+	}
+
+	/**
+	 * @return The number of hidden nodes created since the registry was last cleared.
+	 */
+	@Contract(pure = true)
+	public int getNumSplits() {
+		return splits.size();
+	}
+
+	/**
+	 * Forget the innovations of the previous generation.
+	 */
+	public void clear() {
+		connections.clear();
+		splits.clear();
+	}
+
+	/**
+	 * The result of splitting a connection with a new hidden node.
+	 */
+	public static final class Split {
+
+		private final int nodeId;
+		private final Innovation incoming;
+		private final Innovation outgoing;
+
+		private Split(int nodeId, @NotNull Innovation incoming, @NotNull Innovation outgoing) {
+			this.nodeId = nodeId;
+			this.incoming = incoming;
+			this.outgoing = outgoing;
+		}
+
+		/**
+		 * @return The id of the new hidden node.
+		 */
+		@Contract(pure = true)
+		public int getNodeId() {
+			return nodeId;
+		}
+
+		/**
+		 * @return The innovation of the connection into the new node.
+		 */
+		@NotNull
+		@Contract(pure = true)
+		public Innovation getIncoming() {
+			return incoming;
+		}
+
+		/**
+		 * @return The innovation of the connection out of the new node.
+		 */
+		@NotNull
+		@Contract(pure = true)
+		public Innovation getOutgoing() {
+			return outgoing;
+		}
+	}
+}
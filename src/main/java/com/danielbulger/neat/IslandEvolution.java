@@ -0,0 +1,228 @@
+package com.danielbulger.neat;
+
+import com.danielbulger.neat.util.SeedSequence;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Evolves several independent {@link Evolution} islands in parallel, periodically migrating the
+ * fittest genomes of each island to another.
+ * <p>
+ * Every island has its own {@link Population}, species and strategies and is evolved on its own
+ * thread, so the islands only synchronise when they migrate. Keeping the populations apart keeps
+ * the speciation of each small and lets the islands explore different solutions, while migration
+ * spreads the best of them.
+ * <p>
+ * Migrants line up with their new island only because every island is reseeded from the template
+ * genome of the first with {@link Population#reseed(Genome)}, so all of them share the same input
+ * and output nodes. Each island numbers the structure it adds with its own {@link EvolutionContext},
+ * offset by the index of the island and stepping by the number of islands, so the islands never reuse
+ * each other's numbers. Each also has its own {@link InnovationRegistry}, so the same change made on
+ * two islands gets different numbers.
+ * <p>
+ * As no number depends on how the island threads interleave, islands created with the same seed and
+ * properties and a deterministic fitness function evolve identically on every run.
+ */
+public final class IslandEvolution implements AutoCloseable {
+
+	/**
+	 * Which island the migrants of each island are sent to.
+	 */
+	public enum Topology {
+
+		/**
+		 * Each island sends to the next, with the last sending to the first.
+		 */
+		RING,
+
+		/**
+		 * Each island sends to a different island chosen at random every migration.
+		 */
+		RANDOM
+	}
+
+	private final List<Evolution> islands = new ArrayList<>();
+	private final Genome[] best;
+	private final int migrationInterval;
+	private final int numMigrants;
+	private final Topology topology;
+	private final SplittableRandom random;
+	private final ExecutorService executor;
+
+	/**
+	 * @param numIslands The number of islands to evolve.
+	 * @param migrationInterval The number of generations each island evolves between migrations.
+	 * @param numMigrants The number of the fittest genomes each island sends per migration.
+	 * @param topology Which island the migrants are sent to.
+	 * @param factory Creates each island with the context it must number its structure with. Every
+	 * island should be created with the same properties.
+	 */
+	public IslandEvolution(
+		int numIslands,
+		int migrationInterval,
+		int numMigrants,
+		final @NotNull Topology topology,
+		final @NotNull Function<EvolutionContext, Evolution> factory
+	) {
+		if (numIslands <= 0) {
+			throw new IllegalArgumentException("must have at least 1 island");
+		}
+
+		if (migrationInterval <= 0) {
+			throw new IllegalArgumentException("migration interval must be positive");
+		}
+
+		if (numMigrants < 0) {
+			throw new IllegalArgumentException("number of migrants must not be negative");
+		}
+
+		this.best = new Genome[numIslands];
+		this.migrationInterval = migrationInterval;
+		this.numMigrants = numMigrants;
+		this.topology = Objects.requireNonNull(topology);
+
+		for (int i = 0; i < numIslands; ++i) {
+			final EvolutionContext context = new EvolutionContext(i, numIslands);
+			final Evolution island = Objects.requireNonNull(factory.apply(context));
+
+			if (island.getContext() != context) {
+				throw new IllegalArgumentException("Every island must be created with the context it is given");
+			}
+
+			islands.add(island);
+		}
+
+		// Every island starts from the same template so that the input and output
+		// nodes of a migrant line up with those of the island it is sent to.
+		final Genome template = islands.get(0).getGenomes().get(0);
+
+		for (int i = 1; i < numIslands; ++i) {
+			islands.get(i).getPopulation().reseed(template);
+		}
+
+		// Islands created with the same properties share a seed, so give
+		// each its own or they would all evolve identically.
+		final SeedSequence seeds = new SeedSequence(islands.get(0).getSeed());
+
+		for (int i = 0; i < numIslands; ++i) {
+			islands.get(i).setSeed(seeds.derive(i).getSeed());
+		}
+
+		this.random = seeds.random(numIslands);
+
+		final AtomicInteger threads = new AtomicInteger();
+
+		this.executor = Executors.newFixedThreadPool(numIslands, runnable -> {
+			final Thread thread = new Thread(runnable, "neat-island-" + threads.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Evolve every island for the migration interval in parallel, then migrate between them.
+	 *
+	 * @return The fittest {@link Genome} of all the islands.
+	 */
+	@NotNull
+	public Genome evolve() {
+
+		final List<Callable<Void>> tasks = new ArrayList<>();
+
+		for (int i = 0; i < islands.size(); ++i) {
+			final int island = i;
+
+			tasks.add(() -> {
+				for (int generation = 0; generation < migrationInterval; ++generation) {
+					best[island] = islands.get(island).evolve();
+				}
+				return null;
+			});
+		}
+
+		try {
+			for (final Future<Void> future : executor.invokeAll(tasks)) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while evolving the islands", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Island failed to evolve", e.getCause());
+		}
+
+		migrate();
+
+		Genome fittest = best[0];
+
+		for (final Genome genome : best) {
+			if (genome.compareTo(fittest) > 0) {
+				fittest = genome;
+			}
+		}
+
+		return fittest;
+	}
+
+	private void migrate() {
+
+		if (islands.size() < 2 || numMigrants == 0) {
+			return;
+		}
+
+		// Choose every emigrant before any arrive so an island never sends on a migrant it just received.
+		final List<List<Genome>> emigrants = new ArrayList<>();
+
+		for (final Evolution island : islands) {
+			final List<Genome> copies = new ArrayList<>();
+
+			// Copy the migrants since the source island still holds them in its species.
+			for (final Genome genome : island.getPopulation().getFittest(numMigrants)) {
+				copies.add(new Genome(genome));
+			}
+
+			emigrants.add(copies);
+		}
+
+		for (int i = 0; i < islands.size(); ++i) {
+			islands.get(getDestination(i)).getPopulation().immigrate(emigrants.get(i));
+		}
+	}
+
+	@Contract(pure = true)
+	private int getDestination(int island) {
+		switch (topology) {
+			case RING:
+				return (island + 1) % islands.size();
+			case RANDOM:
+				// Choose from every other island.
+				final int other = random.nextInt(islands.size() - 1);
+				return other >= island ? other + 1 : other;
+			default:
+				throw new IllegalStateException(String.format("Unknown topology %s", topology));
+		}
+	}
+
+	@NotNull
+	@Contract(pure = true)
+	public List<Evolution> getIslands() {
+		return Collections.unmodifiableList(islands);
+	}
+
+	/**
+	 * Stop the island threads. The islands themselves remain usable.
+	 */
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+}
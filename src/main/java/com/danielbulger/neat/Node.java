@@ -1,28 +1,30 @@
 package com.danielbulger.neat;
 
-import com.danielbulger.neat.util.MathUtil;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
 import java.awt.*;
-import java.util.List;
-import java.util.*;
+import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class Node implements Comparable<Node> {
 
 	private static final AtomicInteger counter = new AtomicInteger(0);
 
+	/**
+	 * Create a {@link Node} with a new id shared by the whole JVM, for genomes built outside of
+	 * an {@link Evolution}, which numbers its nodes with its {@link EvolutionContext} instead.
+	 */
 	public static Node create(NodeType type) {
-		return new Node(counter.incrementAndGet(), type);
+		return new Node(nextId(), type);
+	}
+
+	static int nextId() {
+		return counter.incrementAndGet();
 	}
 
-	private final List<Connection> incomingConnections = new ArrayList<>();
-	private final List<Connection> outgoingConnections = new ArrayList<>();
 	private final int id;
 	private final NodeType type;
-	private float value = 0;
-	private boolean processed = false;
 	private Point point;
 
 	public Node(int id, @NotNull NodeType type) {
@@ -32,71 +34,6 @@ public class Node implements Comparable<Node> {
 
 	public Node(@NotNull Node other) {
 		this(other.id, other.type);
-		this.value = 0;
-		this.processed = false;
-	}
-
-	private boolean isReady() {
-		for (final Connection connection : incomingConnections) {
-			if (!connection.getFrom().processed) {
-				return false;
-			}
-		}
-
-		return true;
-	}
-
-	public void process() {
-
-		if (type.shouldActivate()) {
-			this.value = MathUtil.sigmoid(this.value);
-		}
-
-		for (final Connection connection : outgoingConnections) {
-			if (!connection.isEnabled()) {
-				continue;
-			}
-			connection.getTo().value += (connection.getWeight() * this.value);
-		}
-
-		this.processed = true;
-
-		for (final Connection connection : outgoingConnections) {
-			if (connection.getTo().isReady()) {
-				connection.getTo().process();
-			}
-		}
-	}
-
-	public void reset() {
-		this.value = 0f;
-		this.processed = false;
-	}
-
-	public void addIncomingConnection(final Connection connection) {
-
-		if (!connection.getTo().equals(this)) {
-			throw new IllegalArgumentException();
-		}
-
-		this.incomingConnections.add(connection);
-	}
-
-	public void addOutgoingConnection(final Connection connection) {
-		if (!connection.getFrom().equals(this)) {
-			throw new IllegalArgumentException();
-		}
-
-		this.outgoingConnections.add(connection);
-	}
-
-	@Contract(pure = true)
-	public float getValue() {
-		return value;
-	}
-
-	public void setValue(float value) {
-		this.value = value;
 	}
 
 	@Contract(pure = true)
@@ -109,16 +46,6 @@ public class Node implements Comparable<Node> {
 		return type;
 	}
 
-	@Contract(pure = true)
-	public Collection<Connection> getIncomingConnections() {
-		return Collections.unmodifiableCollection(incomingConnections);
-	}
-
-	@Contract(pure = true)
-	public Collection<Connection> getOutgoingConnections() {
-		return Collections.unmodifiableCollection(outgoingConnections);
-	}
-
 	public Point getPoint() {
 		return point;
 	}
@@ -151,8 +78,6 @@ public class Node implements Comparable<Node> {
 		return "Node{" +
 			"id=" + id +
 			", type=" + type +
-			", value=" + value +
-			", processed=" + processed +
 			'}';
 	}
 
@@ -0,0 +1,188 @@
+package com.danielbulger.neat;
+
+import com.danielbulger.neat.activation.ActivationFunction;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * The node genes of a {@link Genome} stored as primitive arrays in the order they were added.
+ * <p>
+ * The index of a node is local to its genome, dense from zero and never changes, so the
+ * {@link ConnectionGenes} and networks refer to nodes by index. The global id of a node is only
+ * needed to line up the nodes of different genomes, which {@link #indexOf(int)} does with a
+ * separate index of the nodes sorted by id.
+ * <p>
+ * Like the {@link ConnectionGenes}, a copy shares the arrays of the original until either is modified.
+ */
+public final class NodeGenes {
+
+	private static final NodeType[] TYPES = NodeType.values();
+
+	private int size;
+	private int[] ids;
+	private byte[] types;
+	private int[] byId;
+	private ActivationFunction[] activations;
+	private final int[] typeCounts = new int[TYPES.length];
+	private volatile boolean nodesShared;
+	private volatile boolean activationsShared;
+
+	NodeGenes() {
+		this(8);
+	}
+
+	NodeGenes(int capacity) {
+		this.ids = new int[capacity];
+		this.types = new byte[capacity];
+		this.byId = new int[capacity];
+	}
+
+	NodeGenes(@NotNull NodeGenes other) {
+		// Both sides now have to copy an array before writing to it.
+		other.nodesShared = true;
+		other.activationsShared = true;
+
+		this.size = other.size;
+		this.ids = other.ids;
+		this.types = other.types;
+		this.byId = other.byId;
+		this.activations = other.activations;
+		this.nodesShared = true;
+		this.activationsShared = true;
+		System.arraycopy(other.typeCounts, 0, typeCounts, 0, typeCounts.length);
+	}
+
+	@Contract(pure = true)
+	public int size() {
+		return size;
+	}
+
+	@Contract(pure = true)
+	public int getId(int index) {
+		return ids[index];
+	}
+
+	@NotNull
+	@Contract(pure = true)
+	public NodeType getType(int index) {
+		return TYPES[types[index]];
+	}
+
+	/**
+	 * @return The activation function of the node at the {@code index}, or {@code null} if
+	 * it uses the default of the {@link Genome}.
+	 */
+	@Nullable
+	@Contract(pure = true)
+	public ActivationFunction getActivationFunction(int index) {
+		return activations == null ? null : activations[index];
+	}
+
+	/**
+	 * @return The index of the node with the {@code id}, or a negative value if there is none.
+	 */
+	@Contract(pure = true)
+	public int indexOf(int id) {
+		final int position = search(id);
+		return position < 0 ? -1 : byId[position];
+	}
+
+	/**
+	 * Binary search the nodes sorted by id.
+	 *
+	 * @return The position of the {@code id} in {@link #byId}, or {@code -(insertion point) - 1} if there is none.
+	 */
+	@Contract(pure = true)
+	private int search(int id) {
+		int low = 0;
+		int high = size - 1;
+
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final int midId = ids[byId[mid]];
+
+			if (midId < id) {
+				low = mid + 1;
+			} else if (midId > id) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+
+		return -(low + 1);
+	}
+
+	@Contract(pure = true)
+	public int count(@NotNull NodeType type) {
+		return typeCounts[type.ordinal()];
+	}
+
+	/**
+	 * Append a node.
+	 *
+	 * @return The index of the new node.
+	 */
+	int add(int id, @NotNull NodeType type) {
+
+		final int search = search(id);
+
+		if (search >= 0) {
+			throw new IllegalArgumentException(String.format("Node %d already exists", id));
+		}
+
+		final int capacity = size == ids.length ? size * 2 : ids.length;
+
+		if (nodesShared || capacity != ids.length) {
+			ids = Arrays.copyOf(ids, capacity);
+			types = Arrays.copyOf(types, capacity);
+			byId = Arrays.copyOf(byId, capacity);
+			nodesShared = false;
+		}
+
+		copyActivations(capacity);
+
+		final int position = -(search + 1);
+
+		System.arraycopy(byId, position, byId, position + 1, size - position);
+		byId[position] = size;
+
+		if (activations != null) {
+			activations[size] = null;
+		}
+
+		ids[size] = id;
+		types[size] = (byte) type.ordinal();
+		++typeCounts[type.ordinal()];
+
+		return size++;
+	}
+
+	void setActivationFunction(int index, @Nullable ActivationFunction activation) {
+		// Most genomes never override the activation so only allocate when one does.
+		if (activations == null) {
+			if (activation == null) {
+				return;
+			}
+
+			activations = new ActivationFunction[ids.length];
+			activationsShared = false;
+		}
+
+		copyActivations(ids.length);
+		activations[index] = activation;
+	}
+
+	/**
+	 * Take a private copy of the activation overrides, if there are any, when they are shared or need to grow.
+	 */
+	private void copyActivations(int capacity) {
+		if (activations != null && (activationsShared || capacity != activations.length)) {
+			activations = Arrays.copyOf(activations, capacity);
+			activationsShared = false;
+		}
+	}
+}
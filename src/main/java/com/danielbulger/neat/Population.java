@@ -1,22 +1,32 @@
 package com.danielbulger.neat;
 
 import com.danielbulger.neat.evaluate.SpeciesClassifier;
+import com.danielbulger.neat.metrics.Phase;
+import com.danielbulger.neat.metrics.PhaseTimer;
 import com.danielbulger.neat.util.Random;
+import com.danielbulger.neat.util.SeedSequence;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 
 public class Population {
 
 	private static final Logger LOG = LoggerFactory.getLogger(Population.class);
 
+	// The independent random streams of each generation.
+	private static final long REPRESENTATIVE_STREAM = 0;
+	private static final long SPECIES_STREAM = 1;
+	private static final long CHILD_STREAM = 2;
+
 	private final Config config;
 	private final Evolution evolution;
 	private final List<Species> species = new ArrayList<>();
 	private final List<Genome> genomes = new ArrayList<>();
+	private int[] speciesSizes = new int[0];
 
 	public Population(
 		final @NotNull Config config,
@@ -30,81 +40,188 @@ public class Population {
 
 		final int initSize = genomes.size();
 
+		// Every genome shares the same input and output nodes so the
+		// same structural change in two genomes lines up.
+		final Genome template = new Genome(config.getNumInputs(), config.getNumOutputs(), evolution.getContext());
+		template.setActivationFunction(config.getActivation());
+
 		for (int i = initSize; i < size; ++i) {
-			genomes.add(new Genome(config.getNumInputs(), config.getNumOutputs()));
+			genomes.add(new Genome(template));
+		}
+	}
+
+	/**
+	 * Replace every genome with a copy of the {@code template} before the first generation, so
+	 * populations that exchange genomes share the same input and output nodes.
+	 */
+	void reseed(final @NotNull Genome template) {
+
+		if (!species.isEmpty()) {
+			throw new IllegalStateException("Population has already evolved");
+		}
+
+		genomes.replaceAll(genome -> new Genome(template));
+	}
+
+	/**
+	 * @return Up to {@code n} of the fittest evaluated genomes, fittest first.
+	 */
+	@NotNull
+	List<Genome> getFittest(int n) {
+
+		final List<Genome> evaluated = new ArrayList<>();
+
+		for (final Species sp : species) {
+			evaluated.addAll(sp.getGenomes());
+		}
+
+		evaluated.sort(Comparator.reverseOrder());
+
+		return evaluated.subList(0, Math.min(n, evaluated.size()));
+	}
+
+	/**
+	 * Replace the last of the next generation with the {@code immigrants}. The species
+	 * champions are at the front of the generation so they are never replaced.
+	 */
+	void immigrate(final @NotNull List<Genome> immigrants) {
+
+		final int count = Math.min(immigrants.size(), genomes.size() - species.size());
+
+		for (int i = 0; i < count; ++i) {
+			genomes.set(genomes.size() - 1 - i, immigrants.get(i));
 		}
 	}
 
 	public void makeNextGeneration() {
 
-		update();
+		final SeedSequence seeds = evolution.getGenerationSeeds();
+
+		update(seeds);
 
 		if (species.isEmpty()) {
 			throw new IllegalStateException();
 		}
 
+		final long started = System.nanoTime();
 		final double sum = getTotalFitness();
 
-		final List<Genome> children = new ArrayList<>();
-		for (final Species sp : species) {
+		// Identical structural mutations are only shared within a generation.
+		evolution.getInnovations().clear();
 
-			// Retain the best of the Species without change.
-			children.add(sp.getCurrentBest());
+		final int[] quotas = new int[species.size()];
+		int total = 0;
 
-			final int numChildren = getNumSpeciesBreeds(sum, sp) - 1;
+		for (int i = 0; i < quotas.length; ++i) {
+			quotas[i] = Math.max(0, getNumSpeciesBreeds(sum, species.get(i)) - 1);
+			total += 1 + quotas[i];
+		}
+
+		// Decide the parent species of every child up front so the
+		// children can be built in parallel into their own slot.
+		final int size = Math.max(total, genomes.size());
+		final Genome[] children = new Genome[size];
+		final Species[] parents = new Species[size];
+
+		int slot = 0;
 
-			for (int i = 0; i < numChildren; ++i) {
-				children.add(makeChild(sp));
+		for (int i = 0; i < quotas.length; ++i) {
+			final Species sp = species.get(i);
+
+			// Retain the best of the Species without change.
+			children[slot++] = sp.getCurrentBest();
+
+			for (int j = 0; j < quotas[i]; ++j) {
+				parents[slot++] = sp;
 			}
 		}
 
 		// If there is any more room for children
 		// populate the remaining space from a random
 		// selection
-		while (children.size() < genomes.size()) {
-			final Optional<Species> speciesOptional = Random.fromList(species);
+		final SplittableRandom random = seeds.random(SPECIES_STREAM);
+
+		while (slot < size) {
+			final Optional<Species> speciesOptional = Random.fromList(species, random);
 
 			if (speciesOptional.isEmpty()) {
 				continue;
 			}
 
-			children.add(makeChild(speciesOptional.get()));
+			parents[slot++] = speciesOptional.get();
 		}
 
+		// Every child has its own random stream so it is bred the same whichever thread builds it.
+		final SeedSequence childSeeds = seeds.derive(CHILD_STREAM);
+		final SplittableRandom[] randoms = new SplittableRandom[size];
+		final List<Callable<Void>> tasks = new ArrayList<>();
+
+		evolution.forEachChunk(size, (start, end) -> tasks.add(() -> {
+			for (int i = start; i < end; ++i) {
+				if (parents[i] != null) {
+					randoms[i] = childSeeds.random(i);
+					children[i] = makeChild(parents[i], randoms[i]);
+				}
+			}
+			return null;
+		}));
+
+		evolution.invokeAll(tasks);
+
 		// Replace all the parents with the newest generation.
 		genomes.clear();
-		genomes.addAll(children);
+		genomes.addAll(Arrays.asList(children));
+
+		evolution.getPhaseTimer().record(Phase.REPRODUCE, started);
+
+		// Structural mutations take their innovation numbers in the order of the
+		// children rather than the order the threads happen to reach them.
+		final long mutated = System.nanoTime();
+
+		for (int i = 0; i < size; ++i) {
+			if (randoms[i] != null) {
+				evolution.mutate(children[i], randoms[i], true);
+			}
+		}
+
+		evolution.getPhaseTimer().record(Phase.MUTATE, mutated);
 	}
 
-	@Contract(pure = true)
-	private Genome makeChild(final Species species) {
+	/**
+	 * Breed a child of the {@code species} and apply the mutations that don't change its structure.
+	 */
+	@Contract(mutates = "param2")
+	private Genome makeChild(final Species species, final @NotNull SplittableRandom random) {
 
-		final Genome mother = evolution.getGenomeSelect().select(species);
-		final Genome father = evolution.getGenomeSelect().select(species);
-		final Genome child = evolution.getMateStrategy().mate(mother, father);
-		evolution.mutate(child);
+		final List<Genome> parents = evolution.getGenomeSelect().select(species, 2, random);
+		final Genome child = evolution.getMateStrategy(random).mate(parents.get(0), parents.get(1), random);
+
+		evolution.mutate(child, random, false);
 
 		return child;
 	}
 
-	private void update() {
-		updateSpecies();
+	private void update(final @NotNull SeedSequence seeds) {
+		updateSpecies(seeds);
 	}
 
-	@NotNull
-	private Species classify(final @NotNull Genome genome) {
+	/**
+	 * Find the first of {@code candidates}, starting from {@code from}, that the {@code genome} belongs to.
+	 *
+	 * @return The index of the {@link Species} or {@code -1} if there is none.
+	 */
+	@Contract(pure = true)
+	private int classify(final @NotNull Genome genome, final List<Species> candidates, int from) {
 
 		final SpeciesClassifier classifier = evolution.getSpeciesClassifier();
 
-		for (final Species s : species) {
-			if (classifier.isWithinSpecies(s, genome)) {
-				return s;
+		for (int i = from; i < candidates.size(); ++i) {
+			if (classifier.isWithinSpecies(candidates.get(i), genome)) {
+				return i;
 			}
 		}
 
-		final Species child = new Species();
-		species.add(child);
-		return child;
+		return -1;
 	}
 
 	@NotNull
@@ -127,14 +244,46 @@ public class Population {
 		return best;
 	}
 
-	private void speciate() {
+	private void speciate(final @NotNull SeedSequence seeds) {
+
+		final SplittableRandom random = seeds.random(REPRESENTATIVE_STREAM);
+
+		// Fix the representative of every species for this generation so the
+		// genomes can be classified independently of each other.
+		for (final Species sp : species) {
+			sp.updateRepresentative(random);
+			sp.clear();
+		}
+
+		final int existing = species.size();
+		final int[] assignments = new int[genomes.size()];
+		final List<Callable<Void>> tasks = new ArrayList<>();
+
+		evolution.forEachChunk(genomes.size(), (start, end) -> tasks.add(() -> {
+			for (int i = start; i < end; ++i) {
+				assignments[i] = classify(genomes.get(i), species, 0);
+			}
+			return null;
+		}));
+
+		evolution.invokeAll(tasks);
+
+		// Genomes that matched no existing species are compared against
+		// only the species that have been founded since.
+		for (int i = 0; i < assignments.length; ++i) {
+			final Genome genome = genomes.get(i);
+			int index = assignments[i];
 
-		species.forEach(Species::clear);
+			if (index < 0) {
+				index = classify(genome, species, existing);
+			}
 
-		for (final Genome genome : genomes) {
-			final Species sp = classify(genome);
+			if (index < 0) {
+				species.add(new Species());
+				index = species.size() - 1;
+			}
 
-			sp.add(genome);
+			species.get(index).add(genome);
 		}
 
 		final Iterator<Species> it = species.iterator();
@@ -152,11 +301,28 @@ public class Population {
 
 		// Rank the species by fitness in descending order.
 		species.sort(Comparator.reverseOrder());
+
+		speciesSizes = new int[species.size()];
+
+		for (int i = 0; i < speciesSizes.length; ++i) {
+			speciesSizes[i] = species.get(i).getGenomes().size();
+		}
 	}
 
-	private void updateSpecies() {
+	private void updateSpecies(final @NotNull SeedSequence seeds) {
 
-		speciate();
+		final PhaseTimer timer = evolution.getPhaseTimer();
+
+		long start = System.nanoTime();
+		speciate(seeds);
+		timer.record(Phase.SPECIATE, start);
+
+		start = System.nanoTime();
+		cullSpecies();
+		timer.record(Phase.CULL, start);
+	}
+
+	private void cullSpecies() {
 
 		final Iterator<Species> it = species.iterator();
 
@@ -196,6 +362,31 @@ public class Population {
 			.sum();
 	}
 
+	/**
+	 * Replace the whole state of the population, used when resuming from a {@link Checkpoint}.
+	 */
+	void restore(final @NotNull List<Genome> genomes, final @NotNull List<Species> species) {
+		this.genomes.clear();
+		this.genomes.addAll(genomes);
+		this.species.clear();
+		this.species.addAll(species);
+	}
+
+	/**
+	 * @return The size of each species straight after the last speciation.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	int[] getSpeciesSizes() {
+		return speciesSizes;
+	}
+
+	@NotNull
+	@Contract(pure = true)
+	List<Species> getSpecies() {
+		return species;
+	}
+
 	public List<Genome> getGenomes() {
 		// The caller should not mutated the populate state directly.
 		return genomes;
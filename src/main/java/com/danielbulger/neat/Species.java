@@ -1,26 +1,65 @@
 package com.danielbulger.neat;
 
+import com.danielbulger.neat.select.SamplingTable;
+import com.danielbulger.neat.util.Random;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.SplittableRandom;
 
 public class Species implements Comparable<Species> {
 
 	private Genome best;
+	private Genome representative;
 
 	private float highestFitness = Float.MIN_VALUE;
 	private final List<Genome> genomes = new ArrayList<>();
 	private int staleness = 0;
+	private volatile SamplingTable samplingTable;
+
+	public Species() {
+	}
+
+	/**
+	 * Recreate a {@link Species} from a checkpoint.
+	 */
+	Species(
+		@NotNull List<Genome> genomes,
+		Genome best,
+		Genome representative,
+		float highestFitness,
+		int staleness
+	) {
+		this.genomes.addAll(genomes);
+		this.best = best;
+		this.representative = representative;
+		this.highestFitness = highestFitness;
+		this.staleness = staleness;
+	}
 
 	public void add(@NotNull Genome genome) {
+		if (representative == null) {
+			representative = genome;
+		}
+
 		this.genomes.add(genome);
+		this.samplingTable = null;
+	}
+
+	/**
+	 * Choose a random member of the current generation as the representative that
+	 * new genomes are compared against for the whole of the next generation.
+	 */
+	public void updateRepresentative(final @NotNull SplittableRandom random) {
+		Random.fromList(genomes, random).ifPresent(genome -> representative = genome);
 	}
 
 	private void sort() {
 		genomes.sort(Comparator.reverseOrder());
+		samplingTable = null;
 	}
 
 	public void updateBest() {
@@ -47,6 +86,8 @@ public class Species implements Comparable<Species> {
 		for (int start = genomes.size() / 2, end = genomes.size() - 1; end > start; --end) {
 			genomes.remove(end);
 		}
+
+		samplingTable = null;
 	}
 
 	@Contract(pure = true)
@@ -59,6 +100,21 @@ public class Species implements Comparable<Species> {
 		return getTotalFitness() / genomes.size();
 	}
 
+	@Contract(pure = true)
+	Genome getBest() {
+		return best;
+	}
+
+	@Contract(pure = true)
+	float getHighestFitness() {
+		return highestFitness;
+	}
+
+	@Contract(pure = true)
+	public Genome getRepresentative() {
+		return representative;
+	}
+
 	public int getStaleness() {
 		return staleness;
 	}
@@ -71,6 +127,28 @@ public class Species implements Comparable<Species> {
 
 	public void clear() {
 		genomes.clear();
+		samplingTable = null;
+	}
+
+	/**
+	 * Get the table for sampling the genomes by their fitness, built on first use after the
+	 * members of the species last changed.
+	 * <p>
+	 * The table holds the fitness of each genome at the time it was built, so it should
+	 * only be used once the species has been evaluated.
+	 */
+	@NotNull
+	public SamplingTable getSamplingTable() {
+
+		SamplingTable table = samplingTable;
+
+		// Concurrent callers may each build a table, but they are identical.
+		if (table == null) {
+			table = new SamplingTable(genomes);
+			samplingTable = table;
+		}
+
+		return table;
 	}
 
 	@NotNull
@@ -0,0 +1,99 @@
+package com.danielbulger.neat.activation;
+
+import com.danielbulger.neat.util.MathUtil;
+
+/**
+ * The built-in {@link ActivationFunction}s. The sigmoid variants trade accuracy for speed,
+ * the error bounds given are the maximum absolute difference from the exact sigmoid.
+ */
+public enum Activation implements ActivationFunction {
+
+	/**
+	 * The logistic sigmoid computed with {@link Math#exp(double)}, exact to float precision.
+	 */
+	SIGMOID {
+		@Override
+		public float apply(float x) {
+			return MathUtil.sigmoid(x);
+		}
+	},
+
+	/**
+	 * The logistic sigmoid from a 7/6 Pade approximation of {@code tanh(x / 2)},
+	 * with no call to {@link Math#exp(double)}. The error is below {@code 5e-5}.
+	 */
+	RATIONAL_SIGMOID {
+		@Override
+		public float apply(float x) {
+			// The approximation reaches 1 at about 4.97 so clamp to it.
+			final float t = Math.max(-4.97f, Math.min(4.97f, x * 0.5f));
+			final float t2 = t * t;
+			final float tanh = t * (135135f + t2 * (17325f + t2 * (378f + t2))) /
+				(135135f + t2 * (62370f + t2 * (3150f + t2 * 28f)));
+
+			return 0.5f + 0.5f * Math.max(-1f, Math.min(1f, tanh));
+		}
+	},
+
+	/**
+	 * The logistic sigmoid linearly interpolated from a table of 4096 intervals over
+	 * {@code [-16, 16]}, clamped outside of it. The error is below {@code 1e-6}.
+	 */
+	LOOKUP_SIGMOID {
+		@Override
+		public float apply(float x) {
+			return SigmoidTable.lookup(x);
+		}
+	},
+
+	/**
+	 * The hyperbolic tangent, ranging from -1 to 1.
+	 */
+	TANH {
+		@Override
+		public float apply(float x) {
+			return (float) Math.tanh(x);
+		}
+	},
+
+	/**
+	 * The rectified linear unit, {@code max(0, x)}.
+	 */
+	RELU {
+		@Override
+		public float apply(float x) {
+			return Math.max(0f, x);
+		}
+	};
+
+	private static final class SigmoidTable {
+
+		private static final int SIZE = 4096;
+		private static final float MIN = -16f;
+		private static final float MAX = 16f;
+		private static final float SCALE = SIZE / (MAX - MIN);
+		private static final float[] VALUES = new float[SIZE + 1];
+
+		static {
+			for (int i = 0; i <= SIZE; ++i) {
+				VALUES[i] = (float) (1.0 / (1.0 + Math.exp(-(MIN + i / (double) SCALE))));
+			}
+		}
+
+		private static float lookup(float x) {
+			if (!(x > MIN)) {
+				return VALUES[0];
+			}
+
+			if (x >= MAX) {
+				return VALUES[SIZE];
+			}
+
+			final float position = (x - MIN) * SCALE;
+			final int index = (int) position;
+			final float fraction = position - index;
+
+			return VALUES[index] + (VALUES[index + 1] - VALUES[index]) * fraction;
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package com.danielbulger.neat.activation;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The function applied to the summed input of a hidden or output node.
+ * Implementations must be stateless so they can be shared between networks and threads.
+ *
+ * @see Activation
+ */
+public interface ActivationFunction {
+
+	@Contract(pure = true)
+	float apply(float x);
+
+	/**
+	 * Apply the function in place to {@code length} values starting from {@code offset}.
+	 */
+	default void apply(@NotNull float[] values, int offset, int length) {
+		for (int i = offset, end = offset + length; i < end; ++i) {
+			values[i] = apply(values[i]);
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package com.danielbulger.neat.evaluate;
+
+import com.danielbulger.neat.Genome;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Remembers the fitness of recently evaluated genomes by their {@link Genome#getStructuralHash()},
+ * evicting the least recently used once full.
+ * <p>
+ * Genomes with equal hashes are treated as the same network, so the cache must only be used with
+ * a deterministic fitness function. The cache is not thread-safe.
+ */
+public final class FitnessCache {
+
+	private final int capacity;
+	private final LinkedHashMap<Long, Float> entries;
+
+	public FitnessCache(int capacity) {
+
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be positive");
+		}
+
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<Long, Float>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Long, Float> eldest) {
+				return size() > FitnessCache.this.capacity;
+			}
+		};
+	}
+
+	/**
+	 * @return The fitness of the genome with the structural {@code hash}, or {@code null} if it
+	 * is not cached.
+	 */
+	@Nullable
+	public Float get(long hash) {
+		return entries.get(hash);
+	}
+
+	public void put(long hash, float fitness) {
+		entries.put(hash, fitness);
+	}
+
+	/**
+	 * Pass every entry to the {@code consumer}, least recently used first, so putting them into an
+	 * empty cache in the same order restores it.
+	 */
+	public void forEach(final @NotNull BiConsumer<Long, Float> consumer) {
+		entries.forEach(consumer);
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+
+	@Contract(pure = true)
+	public int size() {
+		return entries.size();
+	}
+
+	@Contract(pure = true)
+	public int getCapacity() {
+		return capacity;
+	}
+}
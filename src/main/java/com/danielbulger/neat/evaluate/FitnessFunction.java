@@ -0,0 +1,13 @@
+package com.danielbulger.neat.evaluate;
+
+import com.danielbulger.neat.Genome;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Scores a {@link Genome}. Implementations are called concurrently from the
+ * evaluation threads so must be thread-safe.
+ */
+public interface FitnessFunction {
+
+	float evaluate(@NotNull Genome genome);
+}
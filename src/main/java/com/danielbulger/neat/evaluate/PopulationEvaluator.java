@@ -0,0 +1,18 @@
+package com.danielbulger.neat.evaluate;
+
+import com.danielbulger.neat.Genome;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+/**
+ * Scores a whole generation at once, for example by handing the genomes to other processes,
+ * instead of one {@link Genome} at a time like a {@link FitnessFunction}.
+ */
+public interface PopulationEvaluator {
+
+	/**
+	 * Set the fitness of every one of the {@code genomes} before returning.
+	 */
+	void evaluate(@NotNull List<Genome> genomes);
+}
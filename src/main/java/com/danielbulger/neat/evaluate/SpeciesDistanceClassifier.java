@@ -1,18 +1,18 @@
 package com.danielbulger.neat.evaluate;
 
-import com.danielbulger.neat.Connection;
+import com.danielbulger.neat.ConnectionGenes;
 import com.danielbulger.neat.Genome;
-import com.danielbulger.neat.Innovation;
 import com.danielbulger.neat.Species;
-import com.danielbulger.neat.util.Random;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.NavigableMap;
-import java.util.Optional;
-
 public class SpeciesDistanceClassifier implements SpeciesClassifier {
 
+	/**
+	 * Genomes with fewer connections than this are not normalised by their size.
+	 */
+	private static final int SMALL_GENOME_SIZE = 20;
+
 	private final float disjointWeighting;
 	private final float excessWeighting;
 	private final float weightWeighting;
@@ -37,93 +37,62 @@ public class SpeciesDistanceClassifier implements SpeciesClassifier {
 	@Override
 	public boolean isWithinSpecies(@NotNull Species species, @NotNull Genome genome) {
 
-		final int factor = 1;
+		final Genome representative = species.getRepresentative();
 
-		final Optional<Genome> optionalGenome = Random.fromList(species.getGenomes());
-
-		if (optionalGenome.isEmpty()) {
+		if (representative == null) {
 			return false;
 		}
 
-		final Genome rep = optionalGenome.get();
-		final float excess = (excessWeighting * getExcess(rep, genome)) / factor;
-		final float disjoint = (disjointWeighting * getDisjoint(rep, genome)) / factor;
-		final float weight = weightWeighting * getAverageWeightDifference(rep, genome);
-		final float distance = excess + disjoint + weight;
-
-		return distance < threshold;
+		return getDistance(representative, genome) < threshold;
 	}
 
+	/**
+	 * Calculate the compatibility distance between two genomes.
+	 * <p>
+	 * Both connection sets are ordered by innovation so the excess, disjoint and matching
+	 * genes are all found in a single merge of the two. The excess and disjoint counts are
+	 * normalised by the size of the larger genome unless both genomes are small.
+	 *
+	 * @param first The first {@link Genome}.
+	 * @param second The second {@link Genome}.
+	 * @return The compatibility distance.
+	 */
 	@Contract(pure = true)
-	private int getExcess(@NotNull Genome representative, @NotNull Genome genome) {
-		final NavigableMap<Innovation, Connection> innovations = genome.getConnections();
-		if (representative.getConnections().isEmpty() || innovations.isEmpty()) {
-			return 0;
-		}
-
-		int size = 0;
-		Innovation last = representative.getConnections().lastKey();
-
-		// Keep moving up the set until we run out of innovations
-		// that are higher than the representative innovations.
-		while ((last = innovations.higherKey(last)) != null) {
-			++size;
-		}
-
-		return size;
-	}
-
-	@Contract(pure = true)
-	private int getDisjoint(@NotNull Genome representative, @NotNull Genome genome) {
-
-		final NavigableMap<Innovation, Connection> repSet = representative.getConnections();
-		final NavigableMap<Innovation, Connection> genomeSet = genome.getConnections();
-
-		if (repSet.isEmpty()) {
-			return 0;
-		}
-
-		int size = 0;
-
-		for (final Innovation innovation : repSet.keySet()) {
-			if (!genomeSet.containsKey(innovation)) {
-				++size;
-			}
-		}
-
-		final Innovation last = repSet.lastKey();
-		for (final Innovation innovation : genomeSet.keySet()) {
-			if (!repSet.containsKey(innovation)) {
-				// If the innovation is higher than the largest in the other set
-				// the it is classified as an excess not an disjoint.
-				if (innovation.compareTo(last) <= 0) {
-					++size;
-				}
-			}
-		}
-
-		return size;
-	}
-
-	@Contract(pure = true)
-	private float getAverageWeightDifference(@NotNull Genome representative, @NotNull Genome genome) {
-
-		int count = 0;
-		float sum = 0;
-
-		for (final Connection c1 : representative.getConnections().values()) {
-			for (final Connection c2 : genome.getConnections().values()) {
-				if (c1.equals(c2)) {
-					sum += Math.abs(c1.getWeight() - c2.getWeight());
-					count += 1;
-				}
+	public float getDistance(@NotNull Genome first, @NotNull Genome second) {
+
+		final ConnectionGenes a = first.getConnectionGenes();
+		final ConnectionGenes b = second.getConnectionGenes();
+
+		int i = 0;
+		int j = 0;
+		int disjoint = 0;
+		int matching = 0;
+		float weightDifference = 0;
+
+		while (i < a.size() && j < b.size()) {
+			final int innovation = a.getInnovation(i);
+			final int other = b.getInnovation(j);
+
+			if (innovation == other) {
+				weightDifference += Math.abs(a.getWeight(i++) - b.getWeight(j++));
+				++matching;
+			} else if (innovation < other) {
+				++disjoint;
+				++i;
+			} else {
+				++disjoint;
+				++j;
 			}
 		}
 
-		if (count == 0) {
-			return 0;
-		}
+		// Whatever remains in either genome is beyond the innovations of the other.
+		final int excess = (a.size() - i) + (b.size() - j);
+		final int size = Math.max(a.size(), b.size());
+		final float factor = size < SMALL_GENOME_SIZE ? 1 : size;
+		final float weight = matching == 0 ? 0 : weightDifference / matching;
 
-		return sum / count;
+		return (excessWeighting * excess) / factor +
+			(disjointWeighting * disjoint) / factor +
+			weightWeighting * weight;
 	}
 }
@@ -0,0 +1,237 @@
+package com.danielbulger.neat.io;
+
+import com.danielbulger.neat.ConnectionGenes;
+import com.danielbulger.neat.Genome;
+import com.danielbulger.neat.NodeGenes;
+import com.danielbulger.neat.NodeType;
+import com.danielbulger.neat.activation.Activation;
+import com.danielbulger.neat.activation.ActivationFunction;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A compact, versioned binary encoding of a {@link Genome} read from and written to a {@link ByteBuffer}.
+ * <p>
+ * The encoding is laid out as:
+ * <ul>
+ *     <li>the format version as a byte</li>
+ *     <li>the fitness as a float and the default activation function as a byte</li>
+ *     <li>the node and connection counts as varints</li>
+ *     <li>for each node in index order, the zigzag varint delta of its id from the previous one and
+ *     a byte holding its type, with the top bit set when an activation byte follows</li>
+ *     <li>for each connection, the unsigned 32 bit delta of its innovation from the previous one
+ *     shifted left by one with the enabled flag in the low bit as a 33 bit varint, the varint index
+ *     of the from and to node, and the weight as a float</li>
+ * </ul>
+ * Nodes are mostly added in ascending id order and connections are stored in ascending innovation
+ * order, so nearly every delta is small and fits in a single byte.
+ */
+public final class GenomeCodec {
+
+	public static final byte VERSION = 1;
+
+	private static final int MAX_VARINT_BYTES = 5;
+
+	private static final int HAS_ACTIVATION = 0x80;
+
+	private static final NodeType[] NODE_TYPES = NodeType.values();
+
+	private static final Activation[] ACTIVATIONS = Activation.values();
+
+	private GenomeCodec() {
+	}
+
+	/**
+	 * @return The most bytes {@link #encode(Genome, ByteBuffer)} can write for the {@code genome}.
+	 */
+	@Contract(pure = true)
+	public static int maxEncodedSize(final @NotNull Genome genome) {
+		return 2 + Float.BYTES + MAX_VARINT_BYTES * 2
+			+ genome.getNodeGenes().size() * (MAX_VARINT_BYTES + 2)
+			+ genome.getConnectionGenes().size() * (MAX_VARINT_BYTES * 3 + Float.BYTES);
+	}
+
+	/**
+	 * Write the {@code genome} at the current position of the {@code buffer}.
+	 *
+	 * @throws BufferOverflowException If the {@code buffer} has too little space remaining.
+	 * @throws IllegalArgumentException If the {@code genome} uses an activation function that is
+	 *                                  not one of {@link Activation}.
+	 */
+	public static void encode(final @NotNull Genome genome, final @NotNull ByteBuffer buffer) {
+
+		final NodeGenes nodes = genome.getNodeGenes();
+		final ConnectionGenes connections = genome.getConnectionGenes();
+
+		buffer.put(VERSION);
+		buffer.putFloat(genome.getFitness());
+		buffer.put(encode(genome.getActivationFunction()));
+
+		writeVarint(buffer, nodes.size());
+		writeVarint(buffer, connections.size());
+
+		for (int i = 0, previous = 0; i < nodes.size(); ++i) {
+			final int id = nodes.getId(i);
+			final ActivationFunction activation = nodes.getActivationFunction(i);
+
+			writeVarint(buffer, zigzag(id - previous));
+
+			if (activation == null) {
+				buffer.put((byte) nodes.getType(i).ordinal());
+			} else {
+				buffer.put((byte) (nodes.getType(i).ordinal() | HAS_ACTIVATION));
+				buffer.put(encode(activation));
+			}
+
+			previous = id;
+		}
+
+		for (int i = 0, previous = 0; i < connections.size(); ++i) {
+			final int innovation = connections.getInnovation(i);
+
+			// The first delta is the innovation itself, which may use every bit of an int.
+			writeVarlong(buffer, ((innovation - previous) & 0xffffffffL) << 1 | (connections.isEnabled(i) ? 1 : 0));
+			writeVarint(buffer, connections.getFrom(i));
+			writeVarint(buffer, connections.getTo(i));
+			buffer.putFloat(connections.getWeight(i));
+
+			previous = innovation;
+		}
+	}
+
+	/**
+	 * Read a {@link Genome} from the current position of the {@code buffer}.
+	 *
+	 * @throws IllegalArgumentException If the encoding is of an unsupported version or is corrupt.
+	 */
+	@NotNull
+	public static Genome decode(final @NotNull ByteBuffer buffer) {
+
+		try {
+			final byte version = buffer.get();
+
+			if (version != VERSION) {
+				throw new IllegalArgumentException(String.format("Unsupported genome encoding version %d", version));
+			}
+
+			final float fitness = buffer.getFloat();
+			final Activation activation = decode(buffer.get());
+			final int numNodes = readVarint(buffer);
+			final int numConnections = readVarint(buffer);
+			final Genome genome = Genome.withCapacity(numNodes, numConnections);
+			genome.setActivationFunction(activation);
+
+			for (int i = 0, id = 0; i < numNodes; ++i) {
+				id += unzigzag(readVarint(buffer));
+
+				final int type = buffer.get() & 0xff;
+
+				genome.addNode(id, NODE_TYPES[type & ~HAS_ACTIVATION]);
+
+				if ((type & HAS_ACTIVATION) != 0) {
+					genome.setActivationFunction(id, decode(buffer.get()));
+				}
+			}
+
+			for (int i = 0, innovation = 0; i < numConnections; ++i) {
+				final long header = readVarlong(buffer);
+
+				innovation += (int) (header >>> 1);
+
+				genome.addLocalConnection(
+					innovation,
+					readVarint(buffer),
+					readVarint(buffer),
+					buffer.getFloat(),
+					(header & 1) != 0
+				);
+			}
+
+			genome.setFitness(fitness);
+
+			return genome;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Corrupt genome encoding", e);
+		}
+	}
+
+	@Contract(pure = true)
+	private static byte encode(final @NotNull ActivationFunction activation) {
+		if (!(activation instanceof Activation)) {
+			throw new IllegalArgumentException(String.format("Unable to encode the activation function %s", activation));
+		}
+
+		return (byte) ((Activation) activation).ordinal();
+	}
+
+	@NotNull
+	@Contract(pure = true)
+	private static Activation decode(byte ordinal) {
+		return ACTIVATIONS[ordinal];
+	}
+
+	/**
+	 * Map a signed value onto an unsigned one so small negative values are small too.
+	 */
+	@Contract(pure = true)
+	private static int zigzag(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	@Contract(pure = true)
+	private static int unzigzag(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static void writeVarint(final @NotNull ByteBuffer buffer, int value) {
+		while ((value & ~0x7f) != 0) {
+			buffer.put((byte) (value & 0x7f | 0x80));
+			value >>>= 7;
+		}
+
+		buffer.put((byte) value);
+	}
+
+	private static void writeVarlong(final @NotNull ByteBuffer buffer, long value) {
+		while ((value & ~0x7fL) != 0) {
+			buffer.put((byte) (value & 0x7f | 0x80));
+			value >>>= 7;
+		}
+
+		buffer.put((byte) value);
+	}
+
+	private static long readVarlong(final @NotNull ByteBuffer buffer) {
+		long value = 0;
+
+		for (int shift = 0; shift < 64; shift += 7) {
+			final byte b = buffer.get();
+			value |= (long) (b & 0x7f) << shift;
+
+			if (b >= 0) {
+				return value;
+			}
+		}
+
+		throw new IllegalArgumentException("Malformed varint");
+	}
+
+	private static int readVarint(final @NotNull ByteBuffer buffer) {
+		int value = 0;
+
+		for (int shift = 0; shift < 32; shift += 7) {
+			final byte b = buffer.get();
+			value |= (b & 0x7f) << shift;
+
+			if (b >= 0) {
+				return value;
+			}
+		}
+
+		throw new IllegalArgumentException("Malformed varint");
+	}
+}
@@ -4,14 +4,14 @@ import com.danielbulger.neat.Genome;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
 
 public class CloneMate implements Mate {
 
 	@Override
-	@Contract(pure = true)
-	public @NotNull Genome mate(@NotNull Genome mother, @NotNull Genome father) {
-		final Genome parent = ThreadLocalRandom.current().nextBoolean() ? mother : father;
+	@Contract(mutates = "param3")
+	public @NotNull Genome mate(@NotNull Genome mother, @NotNull Genome father, @NotNull SplittableRandom random) {
+		final Genome parent = random.nextBoolean() ? mother : father;
 		return new Genome(parent);
 	}
 }
@@ -1,15 +1,14 @@
 package com.danielbulger.neat.mate;
 
-import com.danielbulger.neat.Connection;
+import com.danielbulger.neat.ConnectionGenes;
 import com.danielbulger.neat.Genome;
-import com.danielbulger.neat.Innovation;
+import com.danielbulger.neat.NodeGenes;
+import com.danielbulger.neat.activation.ActivationFunction;
+import com.danielbulger.neat.util.Random;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
 
 public class CrossoverMate implements Mate {
 
@@ -19,61 +18,122 @@ public class CrossoverMate implements Mate {
 		this.connectionDisableChance = connectionDisableChance;
 	}
 
-	@Contract(pure = true)
-	private Genome crossover(@NotNull Genome best, @NotNull Genome other) {
+	@Contract(mutates = "param3")
+	private Genome crossover(@NotNull Genome best, @NotNull Genome other, @NotNull SplittableRandom random) {
 
-		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		final ConnectionGenes bestGenes = best.getConnectionGenes();
+		final ConnectionGenes otherGenes = other.getConnectionGenes();
+		final NodeGenes bestNodes = best.getNodeGenes();
+		final boolean equal = best.compareTo(other) == 0;
 
-		final Genome genome = new Genome(best.getNumInputs(), best.getNumOutputs());
-		final Map<Innovation, Connection> bestConnections = best.getConnections();
-		final Map<Innovation, Connection> otherConnections = other.getConnections();
-		final Set<Innovation> innovations = new TreeSet<>(bestConnections.keySet());
-		innovations.addAll(otherConnections.keySet());
+		// The child starts with the nodes of the fittest parent, including its inputs and outputs,
+		// in the same order so the node indices of its genes stay the same in the child.
+		final Genome genome = new Genome();
+		genome.setActivationFunction(best.getActivationFunction());
 
-		for (final Innovation innovation : innovations) {
+		for (int i = 0; i < bestNodes.size(); ++i) {
+			inheritNode(genome, bestNodes, i);
+		}
+
+		int i = 0;
+		int j = 0;
+
+		// Both parents are ordered by innovation so the genes can be lined up in a single merge.
+		while (i < bestGenes.size() || j < otherGenes.size()) {
 
-			Connection connection = null;
+			final int bestInnovation = i < bestGenes.size() ? bestGenes.getInnovation(i) : Integer.MAX_VALUE;
+			final int otherInnovation = j < otherGenes.size() ? otherGenes.getInnovation(j) : Integer.MAX_VALUE;
 
-			// If they occur in both genomes just randomly choose a parent to take from.
-			if (bestConnections.containsKey(innovation) && otherConnections.containsKey(innovation)) {
+			if (bestInnovation == otherInnovation) {
 
-				connection = new Connection(
-					(random.nextBoolean() ? bestConnections : otherConnections).get(innovation)
-				);
+				// If they occur in both genomes just randomly choose a parent to take from.
+				final boolean fromBest = random.nextBoolean();
+				boolean enabled = fromBest ? bestGenes.isEnabled(i) : otherGenes.isEnabled(j);
 
 				// If one has disabled the connection we need to randomly choose
 				// if the connection should be enabled or disabled.
-				if (bestConnections.get(innovation).isEnabled() != otherConnections.get(innovation).isEnabled()) {
-					connection.setEnabled(random.nextFloat() >= connectionDisableChance);
+				if (bestGenes.isEnabled(i) != otherGenes.isEnabled(j)) {
+					enabled = Random.nextFloat(random) >= connectionDisableChance;
 				}
 
-			} else if (best.compareTo(other) == 0) {
-				// If they are both equally fit then we include both excess/disjoint genes
-				connection = bestConnections.containsKey(innovation) ? bestConnections.get(innovation) : otherConnections.get(innovation);
+				if (fromBest) {
+					inheritAligned(genome, best, i, enabled);
+				} else {
+					inherit(genome, other, j, enabled);
+				}
 
-			} else {
+				++i;
+				++j;
 
-				// Otherwise we only include the ones from the fittest parent.
-				if (bestConnections.containsKey(innovation)) {
-					connection = bestConnections.get(innovation);
-				}
-			}
+			} else if (bestInnovation < otherInnovation) {
+				// The excess/disjoint genes of the fittest parent are always included.
+				inheritAligned(genome, best, i, bestGenes.isEnabled(i));
+				++i;
 
-			if (connection != null) {
-				genome.addConnection(connection);
+			} else {
+				// If they are both equally fit then we include both excess/disjoint genes
+				if (equal) {
+					inherit(genome, other, j, otherGenes.isEnabled(j));
+				}
+				++j;
 			}
 		}
 
 		return genome;
 	}
 
+	/**
+	 * Copy a gene of the parent whose nodes the child started with, so its node indices are the same in both.
+	 */
+	private static void inheritAligned(@NotNull Genome child, @NotNull Genome parent, int index, boolean enabled) {
+		final ConnectionGenes genes = parent.getConnectionGenes();
+		child.addLocalConnection(genes.getInnovation(index), genes.getFrom(index), genes.getTo(index), genes.getWeight(index), enabled);
+	}
+
+	/**
+	 * Copy a gene of the other parent, lining its nodes up with those of the child by id.
+	 */
+	private static void inherit(@NotNull Genome child, @NotNull Genome parent, int index, boolean enabled) {
+		final ConnectionGenes genes = parent.getConnectionGenes();
+		final int from = inheritNode(child, parent, genes.getFrom(index));
+		final int to = inheritNode(child, parent, genes.getTo(index));
+
+		child.addLocalConnection(genes.getInnovation(index), from, to, genes.getWeight(index), enabled);
+	}
+
+	/**
+	 * @return The index in the child of the node at the {@code index} of the parent, adding the node if it is new.
+	 */
+	private static int inheritNode(@NotNull Genome child, @NotNull Genome parent, int index) {
+		final int existing = child.getNodeGenes().indexOf(parent.getNodeGenes().getId(index));
+		return existing < 0 ? inheritNode(child, parent.getNodeGenes(), index) : existing;
+	}
+
+	/**
+	 * Add the node at the {@code index} of the parent's {@code nodes} to the child, keeping any
+	 * activation function the parent overrides it with.
+	 *
+	 * @return The index of the node in the child.
+	 */
+	private static int inheritNode(@NotNull Genome child, @NotNull NodeGenes nodes, int index) {
+		final int id = nodes.getId(index);
+		final int added = child.addNode(id, nodes.getType(index));
+		final ActivationFunction activation = nodes.getActivationFunction(index);
+
+		if (activation != null) {
+			child.setActivationFunction(id, activation);
+		}
+
+		return added;
+	}
+
 	@Override
-	@Contract(pure = true)
-	public @NotNull Genome mate(@NotNull Genome mother, @NotNull Genome father) {
+	@Contract(mutates = "param3")
+	public @NotNull Genome mate(@NotNull Genome mother, @NotNull Genome father, @NotNull SplittableRandom random) {
 		if (mother.compareTo(father) > 0) {
-			return crossover(mother, father);
+			return crossover(mother, father, random);
 		} else {
-			return crossover(father, mother);
+			return crossover(father, mother, random);
 		}
 	}
 }
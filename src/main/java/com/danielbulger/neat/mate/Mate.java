@@ -4,9 +4,11 @@ import com.danielbulger.neat.Genome;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.SplittableRandom;
+
 public interface Mate {
 
 	@NotNull
-	@Contract(pure = true)
-	Genome mate(@NotNull Genome mother, @NotNull Genome father);
+	@Contract(mutates = "param3")
+	Genome mate(@NotNull Genome mother, @NotNull Genome father, @NotNull SplittableRandom random);
 }
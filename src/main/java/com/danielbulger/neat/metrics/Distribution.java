@@ -0,0 +1,93 @@
+package com.danielbulger.neat.metrics;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * Summary statistics of a set of values, such as the fitness of every genome.
+ */
+public final class Distribution {
+
+	private final float[] sorted;
+	private final double mean;
+	private final double standardDeviation;
+
+	public Distribution(final @NotNull float[] values) {
+
+		this.sorted = Arrays.copyOf(values, values.length);
+		Arrays.sort(sorted);
+
+		double sum = 0;
+
+		for (final float value : sorted) {
+			sum += value;
+		}
+
+		this.mean = sorted.length == 0 ? 0 : sum / sorted.length;
+
+		double squares = 0;
+
+		for (final float value : sorted) {
+			squares += (value - mean) * (value - mean);
+		}
+
+		this.standardDeviation = sorted.length == 0 ? 0 : Math.sqrt(squares / sorted.length);
+	}
+
+	@Contract(pure = true)
+	public int getCount() {
+		return sorted.length;
+	}
+
+	@Contract(pure = true)
+	public float getMin() {
+		return sorted.length == 0 ? 0 : sorted[0];
+	}
+
+	@Contract(pure = true)
+	public float getMax() {
+		return sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+	}
+
+	@Contract(pure = true)
+	public double getMean() {
+		return mean;
+	}
+
+	@Contract(pure = true)
+	public double getStandardDeviation() {
+		return standardDeviation;
+	}
+
+	/**
+	 * @param percentile The percentile between 0 and 100.
+	 * @return The value at the {@code percentile} using the nearest rank.
+	 */
+	@Contract(pure = true)
+	public float getPercentile(double percentile) {
+
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException(String.format("Percentile %f is not between 0 and 100", percentile));
+		}
+
+		if (sorted.length == 0) {
+			return 0;
+		}
+
+		final int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+		return sorted[Math.max(0, rank - 1)];
+	}
+
+	@Override
+	public String toString() {
+		return "Distribution{" +
+			"min=" + getMin() +
+			", median=" + getPercentile(50) +
+			", max=" + getMax() +
+			", mean=" + mean +
+			", standardDeviation=" + standardDeviation +
+			'}';
+	}
+}
@@ -0,0 +1,11 @@
+package com.danielbulger.neat.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Notified with the {@link GenerationMetrics} after every generation, on the thread that evolved it.
+ */
+public interface GenerationListener {
+
+	void onGeneration(@NotNull GenerationMetrics metrics);
+}
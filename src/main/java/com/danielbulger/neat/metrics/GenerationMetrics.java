@@ -0,0 +1,131 @@
+package com.danielbulger.neat.metrics;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What happened during a single generation.
+ * <p>
+ * The fitness and size statistics describe the evaluated generation the next was bred from,
+ * the species sizes are those straight after speciation, before any were culled.
+ */
+public final class GenerationMetrics {
+
+	private final int generation;
+	private final long[] phaseNanos;
+	private final int[] speciesSizes;
+	private final Histogram nodeCounts;
+	private final Histogram connectionCounts;
+	private final Distribution fitness;
+	private final int numInnovations;
+	private final int numNewNodes;
+
+	public GenerationMetrics(
+		int generation,
+		final @NotNull long[] phaseNanos,
+		final @NotNull int[] speciesSizes,
+		final @NotNull Histogram nodeCounts,
+		final @NotNull Histogram connectionCounts,
+		final @NotNull Distribution fitness,
+		int numInnovations,
+		int numNewNodes
+	) {
+		if (phaseNanos.length != Phase.values().length) {
+			throw new IllegalArgumentException(String.format("Expected %d phase times got %d", Phase.values().length, phaseNanos.length));
+		}
+
+		this.generation = generation;
+		this.phaseNanos = phaseNanos.clone();
+		this.speciesSizes = speciesSizes.clone();
+		this.nodeCounts = Objects.requireNonNull(nodeCounts);
+		this.connectionCounts = Objects.requireNonNull(connectionCounts);
+		this.fitness = Objects.requireNonNull(fitness);
+		this.numInnovations = numInnovations;
+		this.numNewNodes = numNewNodes;
+	}
+
+	/**
+	 * @return The number of the generation, starting from 1.
+	 */
+	@Contract(pure = true)
+	public int getGeneration() {
+		return generation;
+	}
+
+	@Contract(pure = true)
+	public long getTime(final @NotNull Phase phase, final @NotNull TimeUnit unit) {
+		return unit.convert(phaseNanos[phase.ordinal()], TimeUnit.NANOSECONDS);
+	}
+
+	@Contract(pure = true)
+	public int getNumSpecies() {
+		return speciesSizes.length;
+	}
+
+	/**
+	 * @return The number of genomes in each species, fittest species first.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public int[] getSpeciesSizes() {
+		return speciesSizes.clone();
+	}
+
+	/**
+	 * @return The number of nodes in each genome.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public Histogram getNodeCounts() {
+		return nodeCounts;
+	}
+
+	/**
+	 * @return The number of connections in each genome.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public Histogram getConnectionCounts() {
+		return connectionCounts;
+	}
+
+	@NotNull
+	@Contract(pure = true)
+	public Distribution getFitness() {
+		return fitness;
+	}
+
+	/**
+	 * @return The number of connection innovations created while breeding.
+	 */
+	@Contract(pure = true)
+	public int getNumInnovations() {
+		return numInnovations;
+	}
+
+	/**
+	 * @return The number of hidden nodes created while breeding.
+	 */
+	@Contract(pure = true)
+	public int getNumNewNodes() {
+		return numNewNodes;
+	}
+
+	@Override
+	public String toString() {
+		return "GenerationMetrics{" +
+			"generation=" + generation +
+			", phaseNanos=" + Arrays.toString(phaseNanos) +
+			", numSpecies=" + speciesSizes.length +
+			", nodeCounts=" + nodeCounts +
+			", connectionCounts=" + connectionCounts +
+			", fitness=" + fitness +
+			", numInnovations=" + numInnovations +
+			", numNewNodes=" + numNewNodes +
+			'}';
+	}
+}
@@ -0,0 +1,81 @@
+package com.danielbulger.neat.metrics;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The number of times each value occurs in a set of non-negative integers, such as the number
+ * of nodes in each genome.
+ */
+public final class Histogram {
+
+	private final int[] counts;
+	private final int total;
+	private final long sum;
+
+	public Histogram(final @NotNull int[] values) {
+
+		int max = 0;
+		long sum = 0;
+
+		for (final int value : values) {
+			if (value < 0) {
+				throw new IllegalArgumentException(String.format("Negative value %d", value));
+			}
+
+			max = Math.max(max, value);
+			sum += value;
+		}
+
+		this.counts = new int[values.length == 0 ? 0 : max + 1];
+		this.total = values.length;
+		this.sum = sum;
+
+		for (final int value : values) {
+			++counts[value];
+		}
+	}
+
+	/**
+	 * @return The number of times the {@code value} occurs.
+	 */
+	@Contract(pure = true)
+	public int getCount(int value) {
+		return value >= 0 && value < counts.length ? counts[value] : 0;
+	}
+
+	@Contract(pure = true)
+	public int getTotal() {
+		return total;
+	}
+
+	@Contract(pure = true)
+	public int getMin() {
+		for (int i = 0; i < counts.length; ++i) {
+			if (counts[i] > 0) {
+				return i;
+			}
+		}
+
+		return 0;
+	}
+
+	@Contract(pure = true)
+	public int getMax() {
+		return Math.max(0, counts.length - 1);
+	}
+
+	@Contract(pure = true)
+	public double getMean() {
+		return total == 0 ? 0 : (double) sum / total;
+	}
+
+	@Override
+	public String toString() {
+		return "Histogram{" +
+			"min=" + getMin() +
+			", max=" + getMax() +
+			", mean=" + getMean() +
+			'}';
+	}
+}
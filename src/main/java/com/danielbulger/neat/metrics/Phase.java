@@ -0,0 +1,35 @@
+package com.danielbulger.neat.metrics;
+
+/**
+ * The timed phases of a generation. Each is the wall time of a separate part of the generation,
+ * so the phases add up to no more than the whole.
+ */
+public enum Phase {
+
+	/**
+	 * Scoring every genome of the generation.
+	 */
+	EVALUATE,
+
+	/**
+	 * Dividing the genomes into species.
+	 */
+	SPECIATE,
+
+	/**
+	 * Removing stale species and the weakest half of the others.
+	 */
+	CULL,
+
+	/**
+	 * Breeding the next generation concurrently, including the mutations of the children that
+	 * don't change their structure.
+	 */
+	REPRODUCE,
+
+	/**
+	 * Adding nodes and connections to the children, which is done serially so innovation numbers
+	 * are given in the order of the children.
+	 */
+	MUTATE
+}
@@ -0,0 +1,43 @@
+package com.danielbulger.neat.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates the time spent in each {@link Phase}. Recording from many threads at once is
+ * cheap since each thread adds to its own cell.
+ */
+public final class PhaseTimer {
+
+	private static final Phase[] PHASES = Phase.values();
+
+	private final LongAdder[] nanos = new LongAdder[PHASES.length];
+
+	public PhaseTimer() {
+		for (int i = 0; i < nanos.length; ++i) {
+			nanos[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Add the time since {@code start}, a value of {@link System#nanoTime()}, to the {@code phase}.
+	 */
+	public void record(final @NotNull Phase phase, long start) {
+		nanos[phase.ordinal()].add(System.nanoTime() - start);
+	}
+
+	/**
+	 * @return The nanoseconds spent in each phase, indexed by ordinal, since the last call.
+	 */
+	@NotNull
+	public long[] drain() {
+		final long[] snapshot = new long[nanos.length];
+
+		for (int i = 0; i < nanos.length; ++i) {
+			snapshot[i] = nanos[i].sumThenReset();
+		}
+
+		return snapshot;
+	}
+}
@@ -1,46 +1,70 @@
 package com.danielbulger.neat.mutation;
 
-import com.danielbulger.neat.Connection;
 import com.danielbulger.neat.Genome;
-import com.danielbulger.neat.Node;
+import com.danielbulger.neat.InnovationRegistry;
+import com.danielbulger.neat.NodeGenes;
+import com.danielbulger.neat.NodeType;
 import com.danielbulger.neat.util.Random;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.NavigableMap;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.SplittableRandom;
 
 public class AddConnectionMutation implements Mutation {
 
+	private final InnovationRegistry innovations;
+
+	public AddConnectionMutation(final @NotNull InnovationRegistry innovations) {
+		this.innovations = Objects.requireNonNull(innovations);
+	}
+
+	@Override
+	public boolean isStructural() {
+		return true;
+	}
+
 	@Override
-	public void mutate(@NotNull Genome genome) {
+	public void mutate(@NotNull Genome genome, @NotNull SplittableRandom random) {
 
-		final NavigableMap<Integer, Node> nodes = genome.getNodes();
-		final Optional<Node> optionalFirstNode = Random.fromMap(nodes);
-		final Optional<Node> optionalSecondNode = Random.fromMap(nodes);
+		final NodeGenes nodes = genome.getNodeGenes();
 
-		if (optionalFirstNode.isEmpty() || optionalSecondNode.isEmpty()) {
+		if (nodes.size() == 0) {
 			return;
 		}
 
-		Node fromNode = optionalFirstNode.get();
-		Node toNode = optionalSecondNode.get();
+		// The node indices are dense so every node is equally likely.
+		int from = random.nextInt(nodes.size());
+		int to = random.nextInt(nodes.size());
 
-		if (fromNode.equals(toNode)) {
+		if (from == to) {
 			return;
 		}
 
+		final NodeType fromType = nodes.getType(from);
+		final NodeType toType = nodes.getType(to);
+
 		// Check if the nodes are the same type and if they are allowed to connect by type.
-		if (fromNode.getType() == toNode.getType() && !fromNode.getType().isSameTypeConnectionAllowed()) {
+		if (fromType == toType && !fromType.isSameTypeConnectionAllowed()) {
 			return;
 		}
 
 		// Ensure that they are in the correct ordering so input nodes connect to output nodes etc.
-		if (fromNode.getType().getOrder() > toNode.getType().getOrder()) {
-			Node temp = fromNode;
-			fromNode = toNode;
-			toNode = temp;
+		if (fromType.getOrder() > toType.getOrder()) {
+			final int temp = from;
+			from = to;
+			to = temp;
+		}
+
+		if (genome.isLocallyConnected(from, to)) {
+			return;
 		}
 
-		genome.addConnection(Connection.create(fromNode, toNode));
+		genome.addLocalConnection(
+			innovations.getConnection(nodes.getId(from), nodes.getId(to)).getId(),
+			from,
+			to,
+			Random.nextFloat(random),
+			true
+		);
 	}
 }
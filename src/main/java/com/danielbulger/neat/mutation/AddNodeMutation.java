@@ -1,38 +1,56 @@
 package com.danielbulger.neat.mutation;
 
-import com.danielbulger.neat.Connection;
+import com.danielbulger.neat.ConnectionGenes;
 import com.danielbulger.neat.Genome;
-import com.danielbulger.neat.Node;
+import com.danielbulger.neat.InnovationRegistry;
 import com.danielbulger.neat.NodeType;
 import com.danielbulger.neat.util.Random;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.SplittableRandom;
 
 public class AddNodeMutation implements Mutation {
 
+	private final InnovationRegistry innovations;
+
+	public AddNodeMutation(final @NotNull InnovationRegistry innovations) {
+		this.innovations = Objects.requireNonNull(innovations);
+	}
+
+	@Override
+	public boolean isStructural() {
+		return true;
+	}
+
 	@Override
-	public void mutate(@NotNull Genome genome) {
+	public void mutate(@NotNull Genome genome, @NotNull SplittableRandom random) {
 
-		final List<Connection> connections = genome.getActiveConnections();
-		final Optional<Connection> optionalConnection = Random.fromList(connections);
+		final ConnectionGenes genes = genome.getConnectionGenes();
+		final int enabled = genes.countEnabled();
 
-		if(optionalConnection.isEmpty()) {
+		if (enabled == 0) {
 			return;
 		}
 
-		final Connection oldConnection = optionalConnection.get();
-		oldConnection.setEnabled(false);
+		final int gene = genes.getEnabledIndex(random.nextInt(enabled));
+		final InnovationRegistry.Split split = innovations.getSplit(genes.getInnovation(gene));
+
+		// The genome already has the node if it split this connection earlier in the generation.
+		if (genome.hasNode(split.getNodeId())) {
+			return;
+		}
+
+		final int from = genes.getFrom(gene);
+		final int to = genes.getTo(gene);
+
+		genome.setEnabled(gene, false);
 
-		final Node node = Node.create(NodeType.HIDDEN);
-		genome.addNode(node);
+		final int node = genome.addNode(split.getNodeId(), NodeType.HIDDEN);
 
-		genome.addConnections(
-			// The connection from the existing from node to the new node.
-			Connection.create(oldConnection.getFrom(), node),
-			// The connection from the new node to the existing to node.
-			Connection.create(node, oldConnection.getTo())
-		);
+		// The connection from the existing from node to the new node.
+		genome.addLocalConnection(split.getIncoming().getId(), from, node, Random.nextFloat(random), true);
+		// The connection from the new node to the existing to node.
+		genome.addLocalConnection(split.getOutgoing().getId(), node, to, Random.nextFloat(random), true);
 	}
 }
@@ -1,25 +1,24 @@
 package com.danielbulger.neat.mutation;
 
-import com.danielbulger.neat.Connection;
+import com.danielbulger.neat.ConnectionGenes;
 import com.danielbulger.neat.Genome;
 import com.danielbulger.neat.util.Random;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Optional;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
 
 public class ConnectionWeightMutation implements Mutation {
 
 	@Override
-	public void mutate(@NotNull Genome genome) {
+	public void mutate(@NotNull Genome genome, @NotNull SplittableRandom random) {
 
-		final Optional<Connection> optionalConnection = Random.fromList(genome.getActiveConnections());
+		final ConnectionGenes genes = genome.getConnectionGenes();
+		final int enabled = genes.countEnabled();
 
-		if(optionalConnection.isEmpty()) {
+		if (enabled == 0) {
 			return;
 		}
 
-		final Connection connection = optionalConnection.get();
-		connection.setWeight(ThreadLocalRandom.current().nextFloat());
+		genome.setWeight(genes.getEnabledIndex(random.nextInt(enabled)), Random.nextFloat(random));
 	}
 }
@@ -3,7 +3,19 @@ package com.danielbulger.neat.mutation;
 import com.danielbulger.neat.Genome;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.SplittableRandom;
+
 public interface Mutation {
 
-	void mutate(@NotNull Genome genome);
+	void mutate(@NotNull Genome genome, @NotNull SplittableRandom random);
+
+	/**
+	 * Whether the mutation adds nodes or connections and so takes innovations from the
+	 * {@link com.danielbulger.neat.InnovationRegistry}. Structural mutations are applied to one
+	 * genome at a time, in the order of the generation, so the innovation numbers a run assigns
+	 * don't depend on the number of threads.
+	 */
+	default boolean isStructural() {
+		return false;
+	}
 }
@@ -0,0 +1,270 @@
+package com.danielbulger.neat.network;
+
+import com.danielbulger.neat.Genome;
+import com.danielbulger.neat.activation.ActivationFunction;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * A flattened phenotype of a {@link Genome}.
+ * <p>
+ * The enabled connections are topologically sorted once into primitive arrays, grouped by their
+ * target node, so that a forward pass computes each node in turn as a weighted sum of the nodes
+ * before it with no allocation. Nodes are given dense indices, inputs first, then outputs and
+ * then the hidden nodes.
+ * <p>
+ * The sums are computed by a {@link Kernel}, which uses the Vector API when the system property
+ * {@code neat.network.vector} is {@code true} and the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}. Its sums are added in a different order, so the
+ * outputs may differ from the scalar kernel in the last bits.
+ * <p>
+ * Connections that would close a cycle are ignored as a feed-forward pass has no value to
+ * give them, use a {@link RecurrentNetwork} to evaluate them. A node with no enabled incoming
+ * connections is never activated.
+ * <p>
+ * Instances hold their own activation buffer so they must not be shared between threads.
+ */
+public final class CompiledNetwork implements Network {
+
+	/**
+	 * The number of samples that are fed through the network together by
+	 * {@link #activateBatch(float[], float[])}.
+	 */
+	private static final int BLOCK_SIZE = 64;
+
+	/**
+	 * Compile the enabled connections of the {@code genome} into a {@link CompiledNetwork}.
+	 *
+	 * @param genome The {@link Genome} to compile.
+	 * @return The compiled network.
+	 */
+	@NotNull
+	public static CompiledNetwork compile(@NotNull Genome genome) {
+
+		final Topology topology = new Topology(genome);
+		final DenseNodes nodes = topology.getNodes();
+		final int[] source = topology.getSources();
+		final int numNodes = nodes.size();
+
+		// Only the nodes with incoming connections are computed, in topological order.
+		int numComputed = 0;
+		final int[] order = new int[numNodes];
+		final int[] incoming = new int[numNodes + 1];
+		final boolean[] contiguous = new boolean[numNodes];
+		final ActivationFunction[] activationFunctions = new ActivationFunction[numNodes];
+
+		for (int p = 0; p < numNodes; ++p) {
+			final int first = topology.getIncoming(p);
+			final int last = topology.getIncoming(p + 1) - 1;
+
+			if (last < first) {
+				continue;
+			}
+
+			final int node = topology.getNode(p);
+
+			order[numComputed] = node;
+			incoming[numComputed] = first;
+			incoming[numComputed + 1] = last + 1;
+			contiguous[numComputed] = Topology.isContiguous(source, first, last);
+
+			if (nodes.getType(node).shouldActivate()) {
+				activationFunctions[numComputed] = nodes.getActivationFunction(node);
+			}
+
+			++numComputed;
+		}
+
+		return new CompiledNetwork(
+			genome.getNumInputs(),
+			genome.getNumOutputs(),
+			numNodes,
+			Arrays.copyOf(order, numComputed),
+			Arrays.copyOf(incoming, numComputed + 1),
+			Arrays.copyOf(contiguous, numComputed),
+			Arrays.copyOf(activationFunctions, numComputed),
+			source,
+			topology.getWeights()
+		);
+	}
+
+	private final int numInputs;
+	private final int numOutputs;
+	private final int[] order;
+	private final int[] incoming;
+	private final boolean[] contiguous;
+	private final ActivationFunction[] activationFunctions;
+	private final int[] source;
+	private final float[] weight;
+	private final float[] activations;
+	private float[] blockActivations;
+
+	private CompiledNetwork(
+		int numInputs,
+		int numOutputs,
+		int numNodes,
+		int[] order,
+		int[] incoming,
+		boolean[] contiguous,
+		ActivationFunction[] activationFunctions,
+		int[] source,
+		float[] weight
+	) {
+		this.numInputs = numInputs;
+		this.numOutputs = numOutputs;
+		this.order = order;
+		this.incoming = incoming;
+		this.contiguous = contiguous;
+		this.activationFunctions = activationFunctions;
+		this.source = source;
+		this.weight = weight;
+		this.activations = new float[numNodes];
+	}
+
+	/**
+	 * Feed the {@code inputs} through the network.
+	 *
+	 * @param inputs The value of each input node.
+	 * @return A newly allocated array of the output node values.
+	 */
+	@NotNull
+	@Override
+	public float[] activate(@NotNull float[] inputs) {
+		final float[] outputs = new float[numOutputs];
+		activate(inputs, outputs);
+		return outputs;
+	}
+
+	/**
+	 * Feed the {@code inputs} through the network writing the output node values into {@code outputs}.
+	 *
+	 * @param inputs The value of each input node.
+	 * @param outputs The buffer to write the output node values into.
+	 */
+	@Override
+	public void activate(@NotNull float[] inputs, @NotNull float[] outputs) {
+
+		if (inputs.length != numInputs) {
+			throw new IllegalArgumentException(String.format("Expected %d inputs got %d", numInputs, inputs.length));
+		}
+
+		if (outputs.length < numOutputs) {
+			throw new IllegalArgumentException(String.format("Expected %d outputs got %d", numOutputs, outputs.length));
+		}
+
+		final float[] values = this.activations;
+
+		// Clear the previous network state.
+		Arrays.fill(values, numInputs, values.length, 0f);
+		System.arraycopy(inputs, 0, values, 0, numInputs);
+
+		final Kernel kernel = Kernels.INSTANCE;
+
+		for (int n = 0; n < order.length; ++n) {
+			final int node = order[n];
+			final int start = incoming[n];
+			final int end = incoming[n + 1];
+
+			final float sum = contiguous[n]
+				? kernel.sumContiguous(values[node], weight, values, source[start], start, end)
+				: kernel.sum(values[node], weight, source, values, start, end);
+
+			values[node] = activationFunctions[n] == null ? sum : activationFunctions[n].apply(sum);
+		}
+
+		System.arraycopy(values, numInputs, outputs, 0, numOutputs);
+	}
+
+	/**
+	 * Feed many samples through the network at once.
+	 * <p>
+	 * The samples are processed in blocks of {@link #BLOCK_SIZE}, with the activations of a block
+	 * laid out node by node so each connection is applied to the whole block in one tight loop.
+	 * The activations of a node are applied to the whole block at once.
+	 *
+	 * @param inputs The row-major input values, {@link #getNumInputs()} values for each sample.
+	 * @param outputs The row-major buffer to write {@link #getNumOutputs()} values for each sample into.
+	 */
+	@Override
+	public void activateBatch(@NotNull float[] inputs, @NotNull float[] outputs) {
+
+		if (inputs.length % numInputs != 0) {
+			throw new IllegalArgumentException(String.format(
+				"Expected a multiple of %d inputs got %d", numInputs, inputs.length
+			));
+		}
+
+		final int samples = inputs.length / numInputs;
+
+		if (outputs.length < samples * numOutputs) {
+			throw new IllegalArgumentException(String.format(
+				"Expected %d outputs got %d", samples * numOutputs, outputs.length
+			));
+		}
+
+		if (blockActivations == null) {
+			blockActivations = new float[activations.length * BLOCK_SIZE];
+		}
+
+		final float[] values = blockActivations;
+		final Kernel kernel = Kernels.INSTANCE;
+
+		for (int start = 0; start < samples; start += BLOCK_SIZE) {
+
+			final int count = Math.min(BLOCK_SIZE, samples - start);
+
+			// Clear the previous network state.
+			Arrays.fill(values, numInputs * BLOCK_SIZE, values.length, 0f);
+
+			for (int sample = 0; sample < count; ++sample) {
+				final int offset = (start + sample) * numInputs;
+				for (int node = 0; node < numInputs; ++node) {
+					values[node * BLOCK_SIZE + sample] = inputs[offset + node];
+				}
+			}
+
+			for (int n = 0; n < order.length; ++n) {
+				final int to = order[n] * BLOCK_SIZE;
+
+				kernel.accumulate(weight, source, incoming[n], incoming[n + 1], values, to, count, BLOCK_SIZE);
+
+				if (activationFunctions[n] != null) {
+					kernel.activate(activationFunctions[n], values, to, count);
+				}
+			}
+
+			for (int sample = 0; sample < count; ++sample) {
+				final int offset = (start + sample) * numOutputs;
+				for (int node = 0; node < numOutputs; ++node) {
+					outputs[offset + node] = values[(numInputs + node) * BLOCK_SIZE + sample];
+				}
+			}
+		}
+	}
+
+	@Override
+	@Contract(pure = true)
+	public int getNumInputs() {
+		return numInputs;
+	}
+
+	@Override
+	@Contract(pure = true)
+	public int getNumOutputs() {
+		return numOutputs;
+	}
+
+	@Override
+	@Contract(pure = true)
+	public int getNumNodes() {
+		return activations.length;
+	}
+
+	@Override
+	@Contract(pure = true)
+	public int getNumConnections() {
+		return source.length;
+	}
+}
@@ -0,0 +1,69 @@
+package com.danielbulger.neat.network;
+
+import com.danielbulger.neat.Genome;
+import com.danielbulger.neat.NodeGenes;
+import com.danielbulger.neat.NodeType;
+import com.danielbulger.neat.activation.ActivationFunction;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Numbers the nodes of a genome densely, inputs first, then outputs and then the hidden nodes.
+ */
+final class DenseNodes {
+
+	private static final NodeType[] ORDER = {NodeType.INPUT, NodeType.OUTPUT, NodeType.HIDDEN};
+
+	private final int[] indices;
+	private final NodeType[] types;
+	private final ActivationFunction[] activations;
+
+	DenseNodes(@NotNull Genome genome) {
+		final NodeGenes nodes = genome.getNodeGenes();
+		this.indices = new int[nodes.size()];
+		this.types = new NodeType[nodes.size()];
+		this.activations = new ActivationFunction[nodes.size()];
+
+		int next = 0;
+
+		for (final NodeType type : ORDER) {
+			for (int i = 0; i < nodes.size(); ++i) {
+				if (nodes.getType(i) == type) {
+					final ActivationFunction activation = nodes.getActivationFunction(i);
+					types[next] = type;
+					activations[next] = activation == null ? genome.getActivationFunction() : activation;
+					indices[i] = next++;
+				}
+			}
+		}
+	}
+
+	@Contract(pure = true)
+	int size() {
+		return indices.length;
+	}
+
+	/**
+	 * @return The dense index of the node at the {@code index} of the {@link NodeGenes}.
+	 */
+	@Contract(pure = true)
+	int indexOf(int index) {
+		return indices[index];
+	}
+
+	/**
+	 * @return The type of the node at the dense {@code index}.
+	 */
+	@Contract(pure = true)
+	NodeType getType(int index) {
+		return types[index];
+	}
+
+	/**
+	 * @return The activation function of the node at the dense {@code index}.
+	 */
+	@Contract(pure = true)
+	ActivationFunction getActivationFunction(int index) {
+		return activations[index];
+	}
+}
@@ -0,0 +1,45 @@
+package com.danielbulger.neat.network;
+
+import com.danielbulger.neat.activation.ActivationFunction;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The arithmetic of a {@link Network} forward pass, implemented by {@link ScalarKernel}
+ * and, when enabled and the {@code jdk.incubator.vector} module is available, by a kernel using the Vector API.
+ *
+ * @see Kernels
+ */
+interface Kernel {
+
+	/**
+	 * @return {@code initial} plus the sum of {@code weights[i] * values[sources[i]]} for every
+	 * {@code i} from {@code start} inclusive to {@code end} exclusive.
+	 */
+	float sum(float initial, @NotNull float[] weights, @NotNull int[] sources, @NotNull float[] values, int start, int end);
+
+	/**
+	 * The {@link #sum(float, float[], int[], float[], int, int)} of connections whose sources are the
+	 * consecutive values starting from {@code first}.
+	 */
+	float sumContiguous(float initial, @NotNull float[] weights, @NotNull float[] values, int first, int start, int end);
+
+	/**
+	 * Add {@code weights[i] * values[sources[i] * stride + s]} to {@code values[to + s]} for every
+	 * connection {@code i} from {@code start} to {@code end} and every sample {@code s} below {@code count}.
+	 */
+	void accumulate(
+		@NotNull float[] weights,
+		@NotNull int[] sources,
+		int start,
+		int end,
+		@NotNull float[] values,
+		int to,
+		int count,
+		int stride
+	);
+
+	/**
+	 * Apply the {@code function} in place to {@code count} values starting from {@code offset}.
+	 */
+	void activate(@NotNull ActivationFunction function, @NotNull float[] values, int offset, int count);
+}
@@ -0,0 +1,44 @@
+package com.danielbulger.neat.network;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Chooses the {@link Kernel} used by every {@link CompiledNetwork} and {@link LayeredNetwork} in the JVM.
+ * <p>
+ * The {@link ScalarKernel} is used unless the system property {@value #VECTOR_PROPERTY} is
+ * {@code true}, in which case the Vector API kernel is used when its classes are on the class path
+ * and the JVM was started with {@code --add-modules jdk.incubator.vector}. The vector kernel adds
+ * the sums in an order that depends on the vector width of the CPU, so runs with the same seed
+ * are only identical with the scalar kernel.
+ */
+final class Kernels {
+
+	private static final Logger LOG = LoggerFactory.getLogger(Kernels.class);
+
+	static final String VECTOR_PROPERTY = "neat.network.vector";
+
+	private static final String VECTOR_KERNEL = "com.danielbulger.neat.network.VectorKernel";
+
+	static final Kernel INSTANCE = load();
+
+	private static Kernel load() {
+
+		if (!Boolean.parseBoolean(System.getProperty(VECTOR_PROPERTY, "false"))) {
+			return new ScalarKernel();
+		}
+
+		try {
+			final Kernel kernel = (Kernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+			LOG.info("Evaluating networks with {}", kernel);
+			return kernel;
+		} catch (ReflectiveOperationException | LinkageError e) {
+			// Either the kernel was not built or the module was not added to the JVM.
+			LOG.debug("The Vector API is unavailable, evaluating networks with scalar code", e);
+			return new ScalarKernel();
+		}
+	}
+
+	private Kernels() {
+	}
+}
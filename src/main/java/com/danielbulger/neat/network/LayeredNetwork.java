@@ -0,0 +1,562 @@
+package com.danielbulger.neat.network;
+
+import com.danielbulger.neat.Genome;
+import com.danielbulger.neat.activation.ActivationFunction;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A flattened phenotype of a {@link Genome} with its nodes partitioned into layers by depth, the
+ * length of the longest path to them from a node without incoming connections.
+ * <p>
+ * The nodes of a layer only depend on earlier layers, so each layer is computed as a block. A layer
+ * whose nodes are connected to at least half of its distinct source nodes is stored as a dense matrix
+ * over those sources, which are gathered once for the whole layer so every row is a contiguous dot
+ * product. Other layers are stored sparsely. The sums and activations use the same {@link Kernel} as
+ * a {@link CompiledNetwork}, and when compiled with a {@link ForkJoinPool} the nodes of large layers
+ * are computed in parallel.
+ * <p>
+ * The outputs are the same as those of a {@link CompiledNetwork} of the genome. A dense layer whose
+ * sources include an infinite or NaN value is summed sparsely for that pass, so the zero weight of a
+ * missing connection never multiplies it into a node it isn't connected to.
+ * <p>
+ * Instances hold their own activation buffers so they must not be shared between threads.
+ */
+public final class LayeredNetwork implements Network {
+
+	/**
+	 * The number of enabled connections from which {@link Network#compile(Genome)} lays a genome out
+	 * in layers, below it the bookkeeping costs more than it saves.
+	 */
+	public static final int MIN_CONNECTIONS = 4096;
+
+	/**
+	 * The fraction of the possible connections between a layer and its sources from which the layer
+	 * is stored as a dense matrix.
+	 */
+	private static final float DENSE_THRESHOLD = 0.5f;
+
+	/**
+	 * The number of connections below which the nodes of a layer are not split between threads.
+	 */
+	private static final int PARALLEL_CONNECTIONS = 1 << 14;
+
+	/**
+	 * The number of samples that are fed through the network together by
+	 * {@link #activateBatch(float[], float[])}.
+	 */
+	private static final int BLOCK_SIZE = 64;
+
+	/**
+	 * Compile the enabled connections of the {@code genome} into a {@link LayeredNetwork} that is
+	 * evaluated on the calling thread.
+	 *
+	 * @param genome The {@link Genome} to compile.
+	 * @return The compiled network.
+	 */
+	@NotNull
+	public static LayeredNetwork compile(@NotNull Genome genome) {
+		return compile(genome, null);
+	}
+
+	/**
+	 * Compile the enabled connections of the {@code genome} into a {@link LayeredNetwork}.
+	 *
+	 * @param genome The {@link Genome} to compile.
+	 * @param pool The pool to compute the nodes of large layers in parallel with, or {@code null}
+	 * to compute every layer on the calling thread.
+	 * @return The compiled network.
+	 */
+	@NotNull
+	public static LayeredNetwork compile(@NotNull Genome genome, @Nullable ForkJoinPool pool) {
+
+		final Topology topology = new Topology(genome);
+		final int numNodes = topology.getNodes().size();
+		final int[] source = topology.getSources();
+
+		// Nodes without incoming connections are at depth zero and never computed.
+		int numLayers = 0;
+		final int[] depth = new int[numNodes];
+
+		for (int p = 0; p < numNodes; ++p) {
+			final int node = topology.getNode(p);
+
+			for (int i = topology.getIncoming(p); i < topology.getIncoming(p + 1); ++i) {
+				depth[node] = Math.max(depth[node], depth[source[i]] + 1);
+			}
+
+			numLayers = Math.max(numLayers, depth[node]);
+		}
+
+		// Counting sort the positions of the computed nodes by depth, keeping them in topological order.
+		final int[] perDepth = new int[numLayers + 2];
+		for (int i = 0; i < numNodes; ++i) {
+			if (depth[i] > 0) {
+				++perDepth[depth[i] + 1];
+			}
+		}
+
+		for (int d = 1; d <= numLayers; ++d) {
+			perDepth[d + 1] += perDepth[d];
+		}
+
+		final int[] positions = new int[perDepth[numLayers + 1]];
+		final int[] slot = Arrays.copyOf(perDepth, numLayers + 1);
+		for (int p = 0; p < numNodes; ++p) {
+			final int node = topology.getNode(p);
+			if (depth[node] > 0) {
+				positions[slot[depth[node]]++] = p;
+			}
+		}
+
+		final Layer[] layers = new Layer[numLayers];
+		for (int d = 1; d <= numLayers; ++d) {
+			layers[d - 1] = new Layer(topology, Arrays.copyOfRange(positions, perDepth[d], perDepth[d + 1]));
+		}
+
+		return new LayeredNetwork(genome.getNumInputs(), genome.getNumOutputs(), numNodes, layers, pool);
+	}
+
+	private final int numInputs;
+	private final int numOutputs;
+	private final Layer[] layers;
+	private final ForkJoinPool pool;
+	private final int numConnections;
+	private final float[] activations;
+	private final float[] gathered;
+	private final float[] sums;
+	private float[] blockActivations;
+
+	private LayeredNetwork(int numInputs, int numOutputs, int numNodes, Layer[] layers, ForkJoinPool pool) {
+		this.numInputs = numInputs;
+		this.numOutputs = numOutputs;
+		this.layers = layers;
+		this.pool = pool;
+		this.activations = new float[numNodes];
+
+		int numConnections = 0;
+		int maxColumns = 0;
+		int maxRows = 0;
+
+		for (final Layer layer : layers) {
+			numConnections += layer.countConnections(0, layer.size());
+			maxColumns = Math.max(maxColumns, layer.getNumColumns());
+			maxRows = Math.max(maxRows, layer.size());
+		}
+
+		this.numConnections = numConnections;
+		this.gathered = new float[maxColumns];
+		this.sums = new float[maxRows];
+	}
+
+	@Override
+	public void activate(@NotNull float[] inputs, @NotNull float[] outputs) {
+
+		if (inputs.length != numInputs) {
+			throw new IllegalArgumentException(String.format("Expected %d inputs got %d", numInputs, inputs.length));
+		}
+
+		if (outputs.length < numOutputs) {
+			throw new IllegalArgumentException(String.format("Expected %d outputs got %d", numOutputs, outputs.length));
+		}
+
+		final float[] values = this.activations;
+
+		// Clear the previous network state.
+		Arrays.fill(values, numInputs, values.length, 0f);
+		System.arraycopy(inputs, 0, values, 0, numInputs);
+
+		for (final Layer layer : layers) {
+			final boolean dense = layer.gather(values, gathered);
+
+			if (isParallel(layer)) {
+				pool.invoke(new RowTask(layer, (start, end) -> layer.activate(Kernels.INSTANCE, values, gathered, sums, dense, start, end)));
+			} else {
+				layer.activate(Kernels.INSTANCE, values, gathered, sums, dense, 0, layer.size());
+			}
+		}
+
+		System.arraycopy(values, numInputs, outputs, 0, numOutputs);
+	}
+
+	/**
+	 * Feed many samples through the network at once.
+	 * <p>
+	 * The samples are processed in blocks of {@link #BLOCK_SIZE} laid out node by node, as in
+	 * {@link CompiledNetwork#activateBatch(float[], float[])}, a layer at a time.
+	 */
+	@Override
+	public void activateBatch(@NotNull float[] inputs, @NotNull float[] outputs) {
+
+		if (inputs.length % numInputs != 0) {
+			throw new IllegalArgumentException(String.format(
+				"Expected a multiple of %d inputs got %d", numInputs, inputs.length
+			));
+		}
+
+		final int samples = inputs.length / numInputs;
+
+		if (outputs.length < samples * numOutputs) {
+			throw new IllegalArgumentException(String.format(
+				"Expected %d outputs got %d", samples * numOutputs, outputs.length
+			));
+		}
+
+		if (blockActivations == null) {
+			blockActivations = new float[activations.length * BLOCK_SIZE];
+		}
+
+		final float[] values = blockActivations;
+
+		for (int start = 0; start < samples; start += BLOCK_SIZE) {
+
+			final int count = Math.min(BLOCK_SIZE, samples - start);
+
+			// Clear the previous network state.
+			Arrays.fill(values, numInputs * BLOCK_SIZE, values.length, 0f);
+
+			for (int sample = 0; sample < count; ++sample) {
+				final int offset = (start + sample) * numInputs;
+				for (int node = 0; node < numInputs; ++node) {
+					values[node * BLOCK_SIZE + sample] = inputs[offset + node];
+				}
+			}
+
+			for (final Layer layer : layers) {
+				if (isParallel(layer)) {
+					pool.invoke(new RowTask(layer, (first, end) -> layer.activateBlock(Kernels.INSTANCE, values, count, first, end)));
+				} else {
+					layer.activateBlock(Kernels.INSTANCE, values, count, 0, layer.size());
+				}
+			}
+
+			for (int sample = 0; sample < count; ++sample) {
+				final int offset = (start + sample) * numOutputs;
+				for (int node = 0; node < numOutputs; ++node) {
+					outputs[offset + node] = values[(numInputs + node) * BLOCK_SIZE + sample];
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return Whether the nodes of the {@code layer} are split between the threads of the pool.
+	 */
+	@Contract(pure = true)
+	private boolean isParallel(Layer layer) {
+		return pool != null && layer.countConnections(0, layer.size()) >= 2 * PARALLEL_CONNECTIONS;
+	}
+
+	@Override
+	@Contract(pure = true)
+	public int getNumInputs() {
+		return numInputs;
+	}
+
+	@Override
+	@Contract(pure = true)
+	public int getNumOutputs() {
+		return numOutputs;
+	}
+
+	@Override
+	@Contract(pure = true)
+	public int getNumNodes() {
+		return activations.length;
+	}
+
+	@Override
+	@Contract(pure = true)
+	public int getNumConnections() {
+		return numConnections;
+	}
+
+	@Contract(pure = true)
+	public int getNumLayers() {
+		return layers.length;
+	}
+
+	/**
+	 * @return The number of nodes in the layer at the {@code index}, the first layer is fed by the
+	 * nodes without incoming connections.
+	 */
+	@Contract(pure = true)
+	public int getLayerSize(int index) {
+		return layers[index].size();
+	}
+
+	/**
+	 * @return Whether the layer at the {@code index} is stored as a dense matrix.
+	 */
+	@Contract(pure = true)
+	public boolean isDense(int index) {
+		return layers[index].matrix != null;
+	}
+
+	@FunctionalInterface
+	private interface Rows {
+
+		/**
+		 * Compute the nodes of a layer from {@code start} inclusive to {@code end} exclusive.
+		 */
+		void compute(int start, int end);
+	}
+
+	/**
+	 * Halves the nodes of a layer until each half has few enough connections to compute alone.
+	 */
+	private static final class RowTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Layer layer;
+		private final Rows rows;
+		private final int start;
+		private final int end;
+
+		private RowTask(Layer layer, Rows rows) {
+			this(layer, rows, 0, layer.size());
+		}
+
+		private RowTask(Layer layer, Rows rows, int start, int end) {
+			this.layer = layer;
+			this.rows = rows;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start < 2 || layer.countConnections(start, end) < PARALLEL_CONNECTIONS) {
+				rows.compute(start, end);
+				return;
+			}
+
+			final int mid = (start + end) >>> 1;
+			invokeAll(new RowTask(layer, rows, start, mid), new RowTask(layer, rows, mid, end));
+		}
+	}
+
+	/**
+	 * The nodes at a single depth. The incoming connections of each node are always kept sparsely,
+	 * ordered by the position of their source, for the batches. A dense layer also keeps a row-major
+	 * matrix of the weights from each of its distinct source nodes, its columns.
+	 */
+	private static final class Layer {
+
+		private final int[] nodes;
+		private final ActivationFunction[] activationFunctions;
+		private final ActivationFunction shared;
+		private final int[] incoming;
+		private final boolean[] contiguous;
+		private final int[] source;
+		private final float[] weight;
+		private final int[] columns;
+		private final boolean contiguousColumns;
+		private final float[] matrix;
+
+		private Layer(@NotNull Topology topology, @NotNull int[] positions) {
+
+			final DenseNodes dense = topology.getNodes();
+			final int size = positions.length;
+
+			this.nodes = new int[size];
+			this.activationFunctions = new ActivationFunction[size];
+			this.incoming = new int[size + 1];
+			this.contiguous = new boolean[size];
+
+			for (int row = 0; row < size; ++row) {
+				final int p = positions[row];
+				nodes[row] = topology.getNode(p);
+				incoming[row + 1] = incoming[row] + topology.getIncoming(p + 1) - topology.getIncoming(p);
+
+				if (dense.getType(nodes[row]).shouldActivate()) {
+					activationFunctions[row] = dense.getActivationFunction(nodes[row]);
+				}
+			}
+
+			this.shared = getShared(activationFunctions);
+			this.source = new int[incoming[size]];
+			this.weight = new float[incoming[size]];
+
+			for (int row = 0; row < size; ++row) {
+				final int from = topology.getIncoming(positions[row]);
+				final int length = incoming[row + 1] - incoming[row];
+				System.arraycopy(topology.getSources(), from, source, incoming[row], length);
+				System.arraycopy(topology.getWeights(), from, weight, incoming[row], length);
+				contiguous[row] = Topology.isContiguous(source, incoming[row], incoming[row + 1] - 1);
+			}
+
+			// The distinct sources of the layer in topological order, the order each row sums them in.
+			final int[] sourcePositions = new int[source.length];
+			for (int i = 0; i < source.length; ++i) {
+				sourcePositions[i] = topology.getPosition(source[i]);
+			}
+
+			Arrays.sort(sourcePositions);
+
+			int numColumns = 0;
+			for (int i = 0; i < sourcePositions.length; ++i) {
+				if (i == 0 || sourcePositions[i] != sourcePositions[i - 1]) {
+					sourcePositions[numColumns++] = sourcePositions[i];
+				}
+			}
+
+			if (source.length < DENSE_THRESHOLD * size * numColumns) {
+				this.columns = new int[0];
+				this.contiguousColumns = false;
+				this.matrix = null;
+				return;
+			}
+
+			this.columns = new int[numColumns];
+			this.matrix = new float[size * numColumns];
+
+			final int[] columnOf = new int[dense.size()];
+			for (int column = 0; column < numColumns; ++column) {
+				columns[column] = topology.getNode(sourcePositions[column]);
+				columnOf[columns[column]] = column;
+			}
+
+			for (int row = 0; row < size; ++row) {
+				for (int i = incoming[row]; i < incoming[row + 1]; ++i) {
+					matrix[row * numColumns + columnOf[source[i]]] = weight[i];
+				}
+			}
+
+			this.contiguousColumns = Topology.isContiguous(columns, 0, numColumns - 1);
+		}
+
+		/**
+		 * @return The activation function of every node, or {@code null} if they differ or any node
+		 * is not activated.
+		 */
+		@Nullable
+		@Contract(pure = true)
+		private static ActivationFunction getShared(ActivationFunction[] activationFunctions) {
+			for (final ActivationFunction function : activationFunctions) {
+				if (function == null || function != activationFunctions[0]) {
+					return null;
+				}
+			}
+
+			return activationFunctions.length == 0 ? null : activationFunctions[0];
+		}
+
+		@Contract(pure = true)
+		private int size() {
+			return nodes.length;
+		}
+
+		@Contract(pure = true)
+		private int getNumColumns() {
+			return columns.length;
+		}
+
+		@Contract(pure = true)
+		private int countConnections(int start, int end) {
+			return incoming[end] - incoming[start];
+		}
+
+		/**
+		 * Copy the values of the columns of a dense layer into the start of {@code gathered}, unless
+		 * they are already consecutive.
+		 *
+		 * @return Whether the layer can be summed densely. It can't if any column is infinite or NaN,
+		 * as the zero weight of a missing connection would turn it into NaN.
+		 */
+		private boolean gather(@NotNull float[] values, @NotNull float[] gathered) {
+
+			if (matrix == null) {
+				return false;
+			}
+
+			boolean finite = true;
+
+			for (int column = 0; column < columns.length; ++column) {
+				final float value = values[columns[column]];
+				finite &= Float.isFinite(value);
+
+				if (!contiguousColumns) {
+					gathered[column] = value;
+				}
+			}
+
+			return finite;
+		}
+
+		/**
+		 * Compute the nodes from {@code start} to {@code end} for a single sample. When every node
+		 * shares an activation function the sums are collected into {@code sums} to be activated together.
+		 * The matrix of a dense layer is only used when {@code dense}, see {@link #gather(float[], float[])}.
+		 */
+		private void activate(
+			@NotNull Kernel kernel,
+			@NotNull float[] values,
+			@NotNull float[] gathered,
+			@NotNull float[] sums,
+			boolean dense,
+			int start,
+			int end
+		) {
+			for (int row = start; row < end; ++row) {
+				final float sum = sum(kernel, values, gathered, dense, row);
+
+				if (shared != null) {
+					sums[row] = sum;
+				} else if (activationFunctions[row] != null) {
+					values[nodes[row]] = activationFunctions[row].apply(sum);
+				} else {
+					values[nodes[row]] = sum;
+				}
+			}
+
+			if (shared != null) {
+				kernel.activate(shared, sums, start, end - start);
+
+				for (int row = start; row < end; ++row) {
+					values[nodes[row]] = sums[row];
+				}
+			}
+		}
+
+		private float sum(@NotNull Kernel kernel, @NotNull float[] values, @NotNull float[] gathered, boolean dense, int row) {
+			final float initial = values[nodes[row]];
+
+			if (dense) {
+				final int width = columns.length;
+				final int offset = row * width;
+
+				return contiguousColumns
+					? kernel.sumContiguous(initial, matrix, values, columns[0], offset, offset + width)
+					: kernel.sumContiguous(initial, matrix, gathered, 0, offset, offset + width);
+			}
+
+			final int first = incoming[row];
+
+			return contiguous[row]
+				? kernel.sumContiguous(initial, weight, values, source[first], first, incoming[row + 1])
+				: kernel.sum(initial, weight, source, values, first, incoming[row + 1]);
+		}
+
+		/**
+		 * Compute the nodes from {@code start} to {@code end} for a block of {@code count} samples.
+		 */
+		private void activateBlock(@NotNull Kernel kernel, @NotNull float[] values, int count, int start, int end) {
+			for (int row = start; row < end; ++row) {
+				final int to = nodes[row] * BLOCK_SIZE;
+
+				kernel.accumulate(weight, source, incoming[row], incoming[row + 1], values, to, count, BLOCK_SIZE);
+
+				if (activationFunctions[row] != null) {
+					kernel.activate(activationFunctions[row], values, to, count);
+				}
+			}
+		}
+	}
+}
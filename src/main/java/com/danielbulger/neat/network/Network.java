@@ -0,0 +1,74 @@
+package com.danielbulger.neat.network;
+
+import com.danielbulger.neat.Genome;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A feed-forward phenotype of a {@link Genome}.
+ * <p>
+ * Implementations hold their own activation buffers so they must not be shared between threads.
+ *
+ * @see CompiledNetwork
+ * @see LayeredNetwork
+ */
+public interface Network {
+
+	/**
+	 * Compile the {@code genome} into the network best suited to its size, a {@link LayeredNetwork}
+	 * when it has at least {@link LayeredNetwork#MIN_CONNECTIONS} enabled connections and otherwise
+	 * a {@link CompiledNetwork}. Both give the same outputs.
+	 *
+	 * @param genome The {@link Genome} to compile.
+	 * @return The compiled network.
+	 */
+	@NotNull
+	static Network compile(@NotNull Genome genome) {
+		if (genome.getConnectionGenes().countEnabled() < LayeredNetwork.MIN_CONNECTIONS) {
+			return CompiledNetwork.compile(genome);
+		}
+
+		return LayeredNetwork.compile(genome);
+	}
+
+	/**
+	 * Feed the {@code inputs} through the network.
+	 *
+	 * @param inputs The value of each input node.
+	 * @return A newly allocated array of the output node values.
+	 */
+	@NotNull
+	default float[] activate(@NotNull float[] inputs) {
+		final float[] outputs = new float[getNumOutputs()];
+		activate(inputs, outputs);
+		return outputs;
+	}
+
+	/**
+	 * Feed the {@code inputs} through the network writing the output node values into {@code outputs}.
+	 *
+	 * @param inputs The value of each input node.
+	 * @param outputs The buffer to write the output node values into.
+	 */
+	void activate(@NotNull float[] inputs, @NotNull float[] outputs);
+
+	/**
+	 * Feed many samples through the network at once.
+	 *
+	 * @param inputs The row-major input values, {@link #getNumInputs()} values for each sample.
+	 * @param outputs The row-major buffer to write {@link #getNumOutputs()} values for each sample into.
+	 */
+	void activateBatch(@NotNull float[] inputs, @NotNull float[] outputs);
+
+	@Contract(pure = true)
+	int getNumInputs();
+
+	@Contract(pure = true)
+	int getNumOutputs();
+
+	@Contract(pure = true)
+	int getNumNodes();
+
+	@Contract(pure = true)
+	int getNumConnections();
+}
@@ -0,0 +1,162 @@
+package com.danielbulger.neat.network;
+
+import com.danielbulger.neat.ConnectionGenes;
+import com.danielbulger.neat.Genome;
+import com.danielbulger.neat.activation.ActivationFunction;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * A stateful phenotype of a {@link Genome} that evaluates every enabled connection, including those
+ * that form cycles between hidden nodes.
+ * <p>
+ * Each {@link #step(float[], float[])} advances the network one time step. Every node is computed
+ * from the values of the previous step, so a signal moves one connection per step and the
+ * activations carry over between steps until {@link #reset()} is called. The state is held in
+ * preallocated buffers so a step costs only its arithmetic.
+ * <p>
+ * Instances hold their own state so they must not be shared between threads.
+ */
+public final class RecurrentNetwork {
+
+	/**
+	 * Compile the enabled connections of the {@code genome} into a {@link RecurrentNetwork}.
+	 *
+	 * @param genome The {@link Genome} to compile.
+	 * @return The compiled network with all activations at zero.
+	 */
+	@NotNull
+	public static RecurrentNetwork compile(@NotNull Genome genome) {
+
+		final DenseNodes nodes = new DenseNodes(genome);
+		final ConnectionGenes genes = genome.getConnectionGenes();
+		final int numConnections = genes.countEnabled();
+
+		final int[] source = new int[numConnections];
+		final int[] target = new int[numConnections];
+		final float[] weight = new float[numConnections];
+		final boolean[] hasIncoming = new boolean[nodes.size()];
+
+		for (int i = 0, gene = 0; i < numConnections; ++i, ++gene) {
+			while (!genes.isEnabled(gene)) {
+				++gene;
+			}
+
+			source[i] = nodes.indexOf(genes.getFrom(gene));
+			target[i] = nodes.indexOf(genes.getTo(gene));
+			weight[i] = genes.getWeight(gene);
+			hasIncoming[target[i]] = true;
+		}
+
+		int numActivations = 0;
+		final int[] activationOrder = new int[nodes.size()];
+		final ActivationFunction[] activationFunctions = new ActivationFunction[nodes.size()];
+
+		for (int i = 0; i < nodes.size(); ++i) {
+			if (hasIncoming[i] && nodes.getType(i).shouldActivate()) {
+				activationFunctions[numActivations] = nodes.getActivationFunction(i);
+				activationOrder[numActivations++] = i;
+			}
+		}
+
+		return new RecurrentNetwork(
+			genome.getNumInputs(),
+			genome.getNumOutputs(),
+			nodes.size(),
+			source,
+			target,
+			weight,
+			Arrays.copyOf(activationOrder, numActivations),
+			Arrays.copyOf(activationFunctions, numActivations)
+		);
+	}
+
+	private final int numInputs;
+	private final int numOutputs;
+	private final int[] source;
+	private final int[] target;
+	private final float[] weight;
+	private final int[] activationOrder;
+	private final ActivationFunction[] activationFunctions;
+	private float[] current;
+	private float[] next;
+
+	private RecurrentNetwork(
+		int numInputs,
+		int numOutputs,
+		int numNodes,
+		int[] source,
+		int[] target,
+		float[] weight,
+		int[] activationOrder,
+		ActivationFunction[] activationFunctions
+	) {
+		this.numInputs = numInputs;
+		this.numOutputs = numOutputs;
+		this.source = source;
+		this.target = target;
+		this.weight = weight;
+		this.activationOrder = activationOrder;
+		this.activationFunctions = activationFunctions;
+		this.current = new float[numNodes];
+		this.next = new float[numNodes];
+	}
+
+	/**
+	 * Advance the network a single time step.
+	 *
+	 * @param inputs The value of each input node for this step.
+	 * @param outputs The buffer to write the output node values into.
+	 */
+	public void step(@NotNull float[] inputs, @NotNull float[] outputs) {
+
+		if (inputs.length != numInputs) {
+			throw new IllegalArgumentException(String.format("Expected %d inputs got %d", numInputs, inputs.length));
+		}
+
+		if (outputs.length < numOutputs) {
+			throw new IllegalArgumentException(String.format("Expected %d outputs got %d", numOutputs, outputs.length));
+		}
+
+		final float[] previous = this.current;
+		final float[] values = this.next;
+
+		System.arraycopy(inputs, 0, previous, 0, numInputs);
+		System.arraycopy(inputs, 0, values, 0, numInputs);
+		Arrays.fill(values, numInputs, values.length, 0f);
+
+		for (int i = 0; i < source.length; ++i) {
+			values[target[i]] += weight[i] * previous[source[i]];
+		}
+
+		for (int i = 0; i < activationOrder.length; ++i) {
+			final int node = activationOrder[i];
+			values[node] = activationFunctions[i].apply(values[node]);
+		}
+
+		this.current = values;
+		this.next = previous;
+
+		System.arraycopy(values, numInputs, outputs, 0, numOutputs);
+	}
+
+	/**
+	 * Clear the activations of every node back to zero.
+	 */
+	public void reset() {
+		Arrays.fill(current, 0f);
+		Arrays.fill(next, 0f);
+	}
+
+	@Contract(pure = true)
+	public int getNumInputs() {
+		return numInputs;
+	}
+
+	@Contract(pure = true)
+	public int getNumOutputs() {
+		return numOutputs;
+	}
+}
@@ -0,0 +1,59 @@
+package com.danielbulger.neat.network;
+
+import com.danielbulger.neat.activation.ActivationFunction;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The plain Java {@link Kernel}. The sums are accumulated in connection order so the results are
+ * identical on every platform.
+ */
+final class ScalarKernel implements Kernel {
+
+	@Override
+	public float sum(float initial, @NotNull float[] weights, @NotNull int[] sources, @NotNull float[] values, int start, int end) {
+		float sum = initial;
+
+		for (int i = start; i < end; ++i) {
+			sum += weights[i] * values[sources[i]];
+		}
+
+		return sum;
+	}
+
+	@Override
+	public float sumContiguous(float initial, @NotNull float[] weights, @NotNull float[] values, int first, int start, int end) {
+		float sum = initial;
+
+		for (int i = start, from = first; i < end; ++i, ++from) {
+			sum += weights[i] * values[from];
+		}
+
+		return sum;
+	}
+
+	@Override
+	public void accumulate(
+		@NotNull float[] weights,
+		@NotNull int[] sources,
+		int start,
+		int end,
+		@NotNull float[] values,
+		int to,
+		int count,
+		int stride
+	) {
+		for (int i = start; i < end; ++i) {
+			final int from = sources[i] * stride;
+			final float w = weights[i];
+
+			for (int sample = 0; sample < count; ++sample) {
+				values[to + sample] += w * values[from + sample];
+			}
+		}
+	}
+
+	@Override
+	public void activate(@NotNull ActivationFunction function, @NotNull float[] values, int offset, int count) {
+		function.apply(values, offset, count);
+	}
+}
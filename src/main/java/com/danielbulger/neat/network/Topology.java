@@ -0,0 +1,232 @@
+package com.danielbulger.neat.network;
+
+import com.danielbulger.neat.ConnectionGenes;
+import com.danielbulger.neat.Genome;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * The enabled connections of a {@link Genome} between dense node indices, with the nodes in
+ * topological order and the connections grouped by the position of their target node.
+ * <p>
+ * Connections that would close a cycle are dropped. The incoming connections of a node are
+ * ordered by the position of their source, so summing them in order gives the same result
+ * however the network is laid out.
+ */
+final class Topology {
+
+	private final DenseNodes nodes;
+	private final int[] position;
+	private final int[] byPosition;
+	private final int[] incoming;
+	private final int[] source;
+	private final float[] weight;
+
+	Topology(@NotNull Genome genome) {
+
+		this.nodes = new DenseNodes(genome);
+		final ConnectionGenes genes = genome.getConnectionGenes();
+		final int numNodes = nodes.size();
+
+		final int numConnections = genes.countEnabled();
+		final int[] connections = new int[numConnections];
+		final int[] from = new int[numConnections];
+		final int[] to = new int[numConnections];
+		final int[] inDegree = new int[numNodes];
+		final int[] outDegree = new int[numNodes];
+
+		for (int i = 0, gene = 0; i < numConnections; ++i, ++gene) {
+			while (!genes.isEnabled(gene)) {
+				++gene;
+			}
+
+			connections[i] = gene;
+			from[i] = nodes.indexOf(genes.getFrom(gene));
+			to[i] = nodes.indexOf(genes.getTo(gene));
+			++inDegree[to[i]];
+			++outDegree[from[i]];
+		}
+
+		// Adjacency list of the outgoing connection indices of each node.
+		final int[] outStart = new int[numNodes + 1];
+		for (int i = 0; i < numNodes; ++i) {
+			outStart[i + 1] = outStart[i] + outDegree[i];
+		}
+
+		final int[] outgoing = new int[numConnections];
+		final int[] fill = Arrays.copyOf(outStart, numNodes);
+		for (int i = 0; i < numConnections; ++i) {
+			outgoing[fill[from[i]]++] = i;
+		}
+
+		final int[] position = topologicalSort(inDegree, outStart, outgoing, to);
+		this.position = position;
+
+		// Drop the connections that go backwards as they would form a cycle.
+		int size = 0;
+		final int[] perSource = new int[numNodes + 1];
+		final int[] perTarget = new int[numNodes + 1];
+		for (int i = 0; i < numConnections; ++i) {
+			if (position[from[i]] < position[to[i]]) {
+				++perSource[position[from[i]] + 1];
+				++perTarget[position[to[i]] + 1];
+				++size;
+			}
+		}
+
+		for (int i = 0; i < numNodes; ++i) {
+			perSource[i + 1] += perSource[i];
+			perTarget[i + 1] += perTarget[i];
+		}
+
+		// Counting sort the connections by the position of their source node and then stably by
+		// the position of their target, so the inputs of a node are summed in topological order.
+		final int[] bySource = new int[size];
+		final int[] sourceSlot = Arrays.copyOf(perSource, numNodes);
+		for (int i = 0; i < numConnections; ++i) {
+			if (position[from[i]] < position[to[i]]) {
+				bySource[sourceSlot[position[from[i]]]++] = i;
+			}
+		}
+
+		final int[] source = new int[size];
+		final float[] weight = new float[size];
+		final int[] targetSlot = Arrays.copyOf(perTarget, numNodes);
+		for (final int i : bySource) {
+			final int index = targetSlot[position[to[i]]]++;
+			source[index] = from[i];
+			weight[index] = genes.getWeight(connections[i]);
+		}
+
+		this.byPosition = new int[numNodes];
+		for (int i = 0; i < numNodes; ++i) {
+			byPosition[position[i]] = i;
+		}
+
+		this.incoming = perTarget;
+		this.source = source;
+		this.weight = weight;
+	}
+
+	/**
+	 * Order the nodes with Kahn's algorithm. When only cycles remain the lowest unvisited
+	 * node is forced next, which turns its remaining incoming connections into back edges.
+	 *
+	 * @return The topological position of each node.
+	 */
+	@Contract(pure = true)
+	private static int[] topologicalSort(int[] inDegree, int[] outStart, int[] outgoing, int[] to) {
+
+		final int numNodes = inDegree.length;
+		final int[] remaining = Arrays.copyOf(inDegree, numNodes);
+		final int[] position = new int[numNodes];
+		final int[] queue = new int[numNodes];
+		final boolean[] visited = new boolean[numNodes];
+
+		int head = 0;
+		int tail = 0;
+		int next = 0;
+
+		for (int i = 0; i < numNodes; ++i) {
+			if (remaining[i] == 0) {
+				queue[tail++] = i;
+				visited[i] = true;
+			}
+		}
+
+		while (head < numNodes) {
+
+			if (head == tail) {
+				while (visited[next]) {
+					++next;
+				}
+				queue[tail++] = next;
+				visited[next] = true;
+			}
+
+			final int node = queue[head];
+			position[node] = head++;
+
+			for (int i = outStart[node]; i < outStart[node + 1]; ++i) {
+				final int target = to[outgoing[i]];
+				if (!visited[target] && --remaining[target] == 0) {
+					queue[tail++] = target;
+					visited[target] = true;
+				}
+			}
+		}
+
+		return position;
+	}
+
+	/**
+	 * @return Whether the {@code indices} from {@code first} to {@code last} inclusive are consecutive,
+	 * such as the inputs of a fully connected node, so they can be read without a gather.
+	 */
+	@Contract(pure = true)
+	static boolean isContiguous(int[] indices, int first, int last) {
+		for (int i = first + 1; i <= last; ++i) {
+			if (indices[i] != indices[i - 1] + 1) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@NotNull
+	@Contract(pure = true)
+	DenseNodes getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return The topological position of the node at the dense {@code index}.
+	 */
+	@Contract(pure = true)
+	int getPosition(int index) {
+		return position[index];
+	}
+
+	/**
+	 * @return The dense index of the node at the topological {@code position}.
+	 */
+	@Contract(pure = true)
+	int getNode(int position) {
+		return byPosition[position];
+	}
+
+	/**
+	 * @return The index of the first incoming connection of the node at the {@code position},
+	 * the connections of the node end at the first of the next position.
+	 */
+	@Contract(pure = true)
+	int getIncoming(int position) {
+		return incoming[position];
+	}
+
+	/**
+	 * @return The dense index of the source of every connection, owned by this topology.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	int[] getSources() {
+		return source;
+	}
+
+	/**
+	 * @return The weight of every connection, owned by this topology.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	float[] getWeights() {
+		return weight;
+	}
+
+	@Contract(pure = true)
+	int size() {
+		return source.length;
+	}
+}
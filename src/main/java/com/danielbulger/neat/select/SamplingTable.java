@@ -0,0 +1,187 @@
+package com.danielbulger.neat.select;
+
+import com.danielbulger.neat.Genome;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A snapshot of the genomes of a {@link com.danielbulger.neat.Species} for repeatedly sampling them
+ * in proportion to their fitness.
+ * <p>
+ * The table is built once in linear time, after which {@link #sample(double)} is constant time
+ * using Vose's alias method and {@link #find(double)} is a binary search of the cumulative weight.
+ * A genome is weighted by its fitness with negative or NaN fitness treated as zero, and if no genome has
+ * a positive fitness every genome is weighted equally. The sums are kept in double precision so
+ * rounding never leaves a point without a genome.
+ */
+public final class SamplingTable {
+
+	private final Genome[] genomes;
+	private final double[] cumulative;
+	private final double[] probability;
+	private final int[] alias;
+	private final double totalWeight;
+
+	public SamplingTable(final @NotNull List<Genome> genomes) {
+
+		final int size = genomes.size();
+
+		this.genomes = genomes.toArray(new Genome[0]);
+		this.cumulative = new double[size];
+		this.probability = new double[size];
+		this.alias = new int[size];
+
+		final double[] weights = new double[size];
+		double sum = 0;
+
+		for (int i = 0; i < size; ++i) {
+			final float fitness = this.genomes[i].getFitness();
+			weights[i] = fitness > 0 ? fitness : 0;
+			sum += weights[i];
+		}
+
+		if (!(sum > 0)) {
+			Arrays.fill(weights, 1);
+			sum = size;
+		}
+
+		this.totalWeight = sum;
+
+		sum = 0;
+
+		for (int i = 0; i < size; ++i) {
+			sum += weights[i];
+			cumulative[i] = sum;
+		}
+
+		buildAlias(weights);
+	}
+
+	private void buildAlias(final @NotNull double[] weights) {
+
+		final int size = weights.length;
+
+		// Scale so the average weight is one, then pair every weight below one with one
+		// above it to fill its column.
+		final double[] scaled = new double[size];
+		final int[] small = new int[size];
+		final int[] large = new int[size];
+		int numSmall = 0;
+		int numLarge = 0;
+
+		for (int i = 0; i < size; ++i) {
+			scaled[i] = weights[i] * size / totalWeight;
+
+			if (scaled[i] < 1) {
+				small[numSmall++] = i;
+			} else {
+				large[numLarge++] = i;
+			}
+		}
+
+		while (numSmall > 0 && numLarge > 0) {
+			final int less = small[--numSmall];
+			final int more = large[--numLarge];
+
+			probability[less] = scaled[less];
+			alias[less] = more;
+			scaled[more] = (scaled[more] + scaled[less]) - 1;
+
+			if (scaled[more] < 1) {
+				small[numSmall++] = more;
+			} else {
+				large[numLarge++] = more;
+			}
+		}
+
+		// Whatever remains is within rounding of one.
+		while (numLarge > 0) {
+			probability[large[--numLarge]] = 1;
+		}
+
+		while (numSmall > 0) {
+			probability[small[--numSmall]] = 1;
+		}
+	}
+
+	/**
+	 * Choose a genome in proportion to its fitness in constant time.
+	 *
+	 * @param uniform A uniformly random value in {@code [0, 1)}.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public Genome sample(double uniform) {
+
+		checkNotEmpty();
+
+		final double scaled = uniform * genomes.length;
+		final int column = Math.min((int) scaled, genomes.length - 1);
+
+		return scaled - column < probability[column] ? genomes[column] : genomes[alias[column]];
+	}
+
+	/**
+	 * Find the genome whose share of the cumulative weight contains the {@code point}.
+	 *
+	 * @param point A value in {@code [0, getTotalWeight())}.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public Genome find(double point) {
+
+		checkNotEmpty();
+
+		int low = 0;
+		int high = genomes.length - 1;
+
+		// The first genome whose cumulative weight exceeds the point.
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+
+			if (cumulative[mid] > point) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+
+		// Rounding can put the point past the last genome with any weight.
+		while (low > 0 && cumulative[low] == cumulative[low - 1]) {
+			--low;
+		}
+
+		return genomes[low];
+	}
+
+	/**
+	 * @return The genome at the {@code index}, in the order of the species.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public Genome get(int index) {
+		return genomes[index];
+	}
+
+	@Contract(pure = true)
+	public int size() {
+		return genomes.length;
+	}
+
+	/**
+	 * @return The sum of the weight of every genome.
+	 */
+	@Contract(pure = true)
+	public double getTotalWeight() {
+		return totalWeight;
+	}
+
+	private void checkNotEmpty() {
+		if (genomes.length == 0) {
+			throw new IllegalStateException("Unable to sample from an empty table");
+		}
+	}
+}
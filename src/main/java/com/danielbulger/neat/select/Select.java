@@ -5,9 +5,34 @@ import com.danielbulger.neat.Species;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
 public interface Select {
 
 	@NotNull
-	@Contract(pure = true)
-	Genome select(final @NotNull Species species);
+	@Contract(mutates = "param2")
+	Genome select(final @NotNull Species species, final @NotNull SplittableRandom random);
+
+	/**
+	 * Select {@code count} genomes from the {@code species} at once, which some strategies
+	 * can do with less bias than selecting each one independently.
+	 */
+	@NotNull
+	@Contract(mutates = "param3")
+	default List<Genome> select(final @NotNull Species species, int count, final @NotNull SplittableRandom random) {
+
+		if (count < 0) {
+			throw new IllegalArgumentException(String.format("Unable to select %d genomes", count));
+		}
+
+		final List<Genome> selected = new ArrayList<>(count);
+
+		for (int i = 0; i < count; ++i) {
+			selected.add(select(species, random));
+		}
+
+		return selected;
+	}
 }
@@ -0,0 +1,53 @@
+package com.danielbulger.neat.select;
+
+import com.danielbulger.neat.Genome;
+import com.danielbulger.neat.Species;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Selects several genomes in proportion to their fitness with evenly spaced pointers into the
+ * cumulative fitness of the species, starting from a single random offset.
+ * <p>
+ * Each genome is selected within one of the number of times its share of the fitness expects,
+ * so a few lucky draws can't fill a selection with the same genome. Selecting a single genome
+ * is the same as {@link WeightedFitnessSelect}.
+ */
+public class StochasticUniversalSelect implements Select {
+
+	@Override
+	@Contract(mutates = "param2")
+	public @NotNull Genome select(@NotNull Species species, @NotNull SplittableRandom random) {
+		final SamplingTable table = species.getSamplingTable();
+		return table.find(random.nextDouble() * table.getTotalWeight());
+	}
+
+	@Override
+	@Contract(mutates = "param3")
+	public @NotNull List<Genome> select(@NotNull Species species, int count, @NotNull SplittableRandom random) {
+
+		if (count < 0) {
+			throw new IllegalArgumentException(String.format("Unable to select %d genomes", count));
+		}
+
+		final SamplingTable table = species.getSamplingTable();
+		final List<Genome> selected = new ArrayList<>(count);
+
+		if (count == 0) {
+			return selected;
+		}
+
+		final double spacing = table.getTotalWeight() / count;
+		final double offset = random.nextDouble() * spacing;
+
+		for (int i = 0; i < count; ++i) {
+			selected.add(table.find(offset + i * spacing));
+		}
+
+		return selected;
+	}
+}
@@ -0,0 +1,50 @@
+package com.danielbulger.neat.select;
+
+import com.danielbulger.neat.Genome;
+import com.danielbulger.neat.Species;
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.SplittableRandom;
+
+/**
+ * Selects the fittest of a number of genomes chosen uniformly at random from the species.
+ * <p>
+ * Unlike {@link WeightedFitnessSelect} only the order of the fitness matters, so the selection
+ * pressure is the same however the fitness is scaled, and larger tournaments favour the fittest more.
+ */
+public class TournamentSelect implements Select {
+
+	private final int size;
+
+	public TournamentSelect(int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException(String.format("Tournament size must be positive, got %d", size));
+		}
+
+		this.size = size;
+	}
+
+	@Override
+	@Contract(mutates = "param2")
+	public @NotNull Genome select(@NotNull Species species, @NotNull SplittableRandom random) {
+
+		final SamplingTable table = species.getSamplingTable();
+
+		if (table.size() == 0) {
+			throw new IllegalStateException("Unable to select from an empty species");
+		}
+
+		Genome fittest = table.get(random.nextInt(table.size()));
+
+		for (int i = 1; i < size; ++i) {
+			final Genome genome = table.get(random.nextInt(table.size()));
+
+			if (genome.compareTo(fittest) > 0) {
+				fittest = genome;
+			}
+		}
+
+		return fittest;
+	}
+}
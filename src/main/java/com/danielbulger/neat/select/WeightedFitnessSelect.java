@@ -5,31 +5,17 @@ import com.danielbulger.neat.Species;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
 
+/**
+ * Selects genomes in proportion to their fitness, in constant time using the
+ * {@link SamplingTable} of the species.
+ */
 public class WeightedFitnessSelect implements Select {
 
 	@Override
-	@Contract(pure = true)
-	public @NotNull Genome select(@NotNull Species species) {
-
-		final float totalFitness = species.getTotalFitness();
-
-		if(!(totalFitness > 0f)) {
-			return species.getGenomes().get(0);
-		}
-
-		final float fitness = (float) ThreadLocalRandom.current().nextDouble(species.getTotalFitness());
-
-		float sum = 0;
-
-		for (final Genome genome : species.getGenomes()) {
-			sum += genome.getFitness();
-			if (sum >= fitness) {
-				return genome;
-			}
-		}
-
-		throw new IllegalStateException("Unable to select Genome from " + species);
+	@Contract(mutates = "param2")
+	public @NotNull Genome select(@NotNull Species species, @NotNull SplittableRandom random) {
+		return species.getSamplingTable().sample(random.nextDouble());
 	}
 }
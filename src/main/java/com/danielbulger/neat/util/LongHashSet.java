@@ -0,0 +1,195 @@
+package com.danielbulger.neat.util;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing set of primitive {@code long} values using linear probing.
+ * <p>
+ * Values are never boxed. A copy shares the table of the original until either of them changes.
+ */
+public final class LongHashSet {
+
+	private static final long EMPTY = 0L;
+
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] keys;
+	private int size;
+	private boolean containsEmpty;
+	private volatile boolean shared;
+
+	public LongHashSet() {
+		this(MIN_CAPACITY / 2);
+	}
+
+	public LongHashSet(int expectedSize) {
+		this.keys = new long[capacityFor(expectedSize)];
+	}
+
+	public LongHashSet(@NotNull LongHashSet other) {
+		other.shared = true;
+		this.keys = other.keys;
+		this.size = other.size;
+		this.containsEmpty = other.containsEmpty;
+		this.shared = true;
+	}
+
+	/**
+	 * Pack two {@code int} values into a single {@code long}.
+	 */
+	@Contract(pure = true)
+	public static long pack(int high, int low) {
+		return ((long) high << 32) | (low & 0xffffffffL);
+	}
+
+	@Contract(pure = true)
+	private static int capacityFor(int expectedSize) {
+		// Keep the load factor at or below a half.
+		final int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedSize * 2) - 1) << 1;
+		return Math.max(MIN_CAPACITY, capacity);
+	}
+
+	@Contract(pure = true)
+	private static int hash(long key) {
+		final long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * @return {@code true} if the {@code key} was not already in the set.
+	 */
+	public boolean add(long key) {
+
+		if (key == EMPTY) {
+			if (containsEmpty) {
+				return false;
+			}
+
+			containsEmpty = true;
+			++size;
+			return true;
+		}
+
+		final int mask = keys.length - 1;
+		int index = hash(key) & mask;
+
+		while (keys[index] != EMPTY) {
+			if (keys[index] == key) {
+				return false;
+			}
+
+			index = (index + 1) & mask;
+		}
+
+		if (shared) {
+			keys = Arrays.copyOf(keys, keys.length);
+			shared = false;
+		}
+
+		keys[index] = key;
+
+		if (++size * 2 > keys.length) {
+			rehash(keys.length * 2);
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return {@code true} if the {@code key} was in the set.
+	 */
+	public boolean remove(long key) {
+
+		if (key == EMPTY) {
+			if (!containsEmpty) {
+				return false;
+			}
+
+			containsEmpty = false;
+			--size;
+			return true;
+		}
+
+		final int mask = keys.length - 1;
+		int index = hash(key) & mask;
+
+		while (keys[index] != key) {
+			if (keys[index] == EMPTY) {
+				return false;
+			}
+
+			index = (index + 1) & mask;
+		}
+
+		if (shared) {
+			keys = Arrays.copyOf(keys, keys.length);
+			shared = false;
+		}
+
+		// Shift back every following key whose probe passes the gap so that none of them is
+		// cut off from its slot by the empty one left behind.
+		for (int next = (index + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+			final int slot = hash(keys[next]) & mask;
+
+			if (((next - slot) & mask) >= ((next - index) & mask)) {
+				keys[index] = keys[next];
+				index = next;
+			}
+		}
+
+		keys[index] = EMPTY;
+		--size;
+		return true;
+	}
+
+	@Contract(pure = true)
+	public boolean contains(long key) {
+
+		if (key == EMPTY) {
+			return containsEmpty;
+		}
+
+		final int mask = keys.length - 1;
+		int index = hash(key) & mask;
+
+		while (keys[index] != EMPTY) {
+			if (keys[index] == key) {
+				return true;
+			}
+
+			index = (index + 1) & mask;
+		}
+
+		return false;
+	}
+
+	@Contract(pure = true)
+	public int size() {
+		return size;
+	}
+
+	private void rehash(int capacity) {
+		final long[] old = keys;
+		final int mask = capacity - 1;
+
+		keys = new long[capacity];
+		shared = false;
+
+		for (final long key : old) {
+			if (key == EMPTY) {
+				continue;
+			}
+
+			int index = hash(key) & mask;
+
+			while (keys[index] != EMPTY) {
+				index = (index + 1) & mask;
+			}
+
+			keys[index] = key;
+		}
+	}
+}
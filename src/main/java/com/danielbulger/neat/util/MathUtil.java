@@ -3,7 +3,17 @@ package com.danielbulger.neat.util;
 public class MathUtil {
 
 	public static float sigmoid(float x) {
-		return 1f / (1f + (float) Math.pow(Math.E, -x));
+		return 1f / (1f + (float) Math.exp(-x));
+	}
+
+	/**
+	 * Scramble the bits of {@code value} with the finaliser of SplitMix64 so every input bit
+	 * affects every output bit.
+	 */
+	public static long mix64(long value) {
+		value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+		return value ^ (value >>> 31);
 	}
 
 	private MathUtil() {
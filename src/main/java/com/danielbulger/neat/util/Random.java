@@ -4,38 +4,32 @@ import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.List;
-import java.util.NavigableMap;
 import java.util.Optional;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
 
 public class Random {
 
 	@NotNull
-	@Contract(pure = true)
-	public static <V> Optional<V> fromMap(@NotNull NavigableMap<Integer, V> map) {
-		if (map.isEmpty()) {
-			return Optional.empty();
-		}
-
-		final ThreadLocalRandom random = ThreadLocalRandom.current();
-		final int element = random.nextInt(map.lastKey());
-		final Integer key = map.ceilingKey(element);
-		return Optional.of(map.get(key));
-	}
-
-	@NotNull
-	@Contract(pure = true)
-	public static <T> Optional<T> fromList(@NotNull List<T> list) {
+	@Contract(mutates = "param2")
+	public static <T> Optional<T> fromList(@NotNull List<T> list, @NotNull SplittableRandom random) {
 
 		if (list.isEmpty()) {
 			return Optional.empty();
 		}
 
-		final ThreadLocalRandom random = ThreadLocalRandom.current();
 		final int element = random.nextInt(list.size());
 		return Optional.of(list.get(element));
 	}
 
+	/**
+	 * @return A uniformly random float in {@code [0, 1)}, computed as {@code SplittableRandom.nextFloat()}
+	 * does in Java 17 as it is not available in Java 11.
+	 */
+	@Contract(mutates = "param")
+	public static float nextFloat(@NotNull SplittableRandom random) {
+		return (random.nextInt() >>> 8) * 0x1.0p-24f;
+	}
+
 	private Random() {
 	}
 }
@@ -0,0 +1,50 @@
+package com.danielbulger.neat.util;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.SplittableRandom;
+
+/**
+ * Derives independent seeds from a single seed by a sequence of keys, such as the generation,
+ * the purpose and the slot of a child.
+ * <p>
+ * A random stream derived this way only depends on its keys, not on the order or the thread it is
+ * created on, so work split over any number of threads draws the same numbers.
+ */
+public final class SeedSequence {
+
+	/**
+	 * The increment of SplitMix64, which spreads consecutive keys over the whole range.
+	 */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private final long seed;
+
+	public SeedSequence(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @return The sequence for the {@code key}, independent of the sequence of any other key.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public SeedSequence derive(long key) {
+		return new SeedSequence(MathUtil.mix64(seed + (key + 1) * GOLDEN_GAMMA));
+	}
+
+	/**
+	 * @return A new random stream for the {@code key}.
+	 */
+	@NotNull
+	@Contract(pure = true)
+	public SplittableRandom random(long key) {
+		return new SplittableRandom(derive(key).seed);
+	}
+
+	@Contract(pure = true)
+	public long getSeed() {
+		return seed;
+	}
+}
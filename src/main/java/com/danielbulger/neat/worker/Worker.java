@@ -0,0 +1,82 @@
+package com.danielbulger.neat.worker;
+
+import com.danielbulger.neat.evaluate.FitnessFunction;
+import com.danielbulger.neat.io.GenomeCodec;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * The entry point of an evaluation process started by a {@link WorkerPool}.
+ * <p>
+ * The worker connects back to the pool on the loopback port it was given and then repeatedly
+ * reads a batch of genomes, scores each with its {@link FitnessFunction} and writes back the
+ * fitness of each in the same order. A batch is framed as the byte length and number of
+ * genomes followed by the genomes encoded with the {@link GenomeCodec}. The worker exits once
+ * the pool closes the connection.
+ */
+public final class Worker {
+
+	private Worker() {
+	}
+
+	/**
+	 * @param args The loopback port of the {@link WorkerPool} and the class name of the
+	 *             {@link FitnessFunction}, which must have a public no argument constructor.
+	 */
+	public static void main(final String[] args) throws Exception {
+
+		if (args.length != 2) {
+			throw new IllegalArgumentException("Usage: Worker <port> <fitness function class>");
+		}
+
+		final int port = Integer.parseInt(args[0]);
+		final FitnessFunction fitnessFunction = (FitnessFunction) Class.forName(args[1])
+			.getDeclaredConstructor()
+			.newInstance();
+
+		try (final Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+			socket.setTcpNoDelay(true);
+			run(fitnessFunction, socket);
+		}
+	}
+
+	private static void run(final @NotNull FitnessFunction fitnessFunction, final @NotNull Socket socket) throws IOException {
+
+		final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+		byte[] bytes = new byte[0];
+
+		while (true) {
+
+			final int length;
+
+			try {
+				length = in.readInt();
+			} catch (EOFException e) {
+				// The pool has closed the connection.
+				return;
+			}
+
+			final int count = in.readInt();
+
+			if (bytes.length < length) {
+				bytes = new byte[length];
+			}
+
+			in.readFully(bytes, 0, length);
+
+			final ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+
+			for (int i = 0; i < count; ++i) {
+				out.writeFloat(fitnessFunction.evaluate(GenomeCodec.decode(buffer)));
+			}
+
+			out.flush();
+		}
+	}
+}
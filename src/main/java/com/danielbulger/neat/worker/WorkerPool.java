@@ -0,0 +1,358 @@
+package com.danielbulger.neat.worker;
+
+import com.danielbulger.neat.Genome;
+import com.danielbulger.neat.evaluate.FitnessFunction;
+import com.danielbulger.neat.evaluate.PopulationEvaluator;
+import com.danielbulger.neat.io.GenomeCodec;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Evaluates genomes in separate {@link Worker} processes so a fitness function that is not
+ * thread-safe, or that can crash the JVM, can still use every core without taking down the run.
+ * <p>
+ * The population is split into batches that are queued for the workers. Each worker is owned
+ * by a dispatcher thread that sends it one batch at a time over a loopback socket, and the
+ * workers are started on first use. When a worker dies, fails to start or exceeds the timeout,
+ * it is killed and its batch is queued again to be picked up by any worker, with a replacement
+ * process started for the next batch. A batch that fails {@link #MAX_ATTEMPTS} times fails
+ * the whole evaluation.
+ */
+public final class WorkerPool implements PopulationEvaluator, AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(WorkerPool.class);
+
+	private static final int DEFAULT_BATCH_SIZE = 32;
+
+	private static final int MAX_ATTEMPTS = 3;
+
+	private static final int STARTUP_TIMEOUT = 30_000;
+
+	private static final int DEFAULT_TIMEOUT = 300_000;
+
+	private final String fitnessFunction;
+	private final int batchSize;
+	private final int timeout;
+	private final List<String> jvmArgs;
+	private final BlockingQueue<Batch> queue = new LinkedBlockingQueue<>();
+	private final List<Dispatcher> dispatchers = new ArrayList<>();
+	private final List<Thread> threads = new ArrayList<>();
+	private volatile boolean closed;
+
+	/**
+	 * Create a pool that treats a worker as hung when it takes more than five minutes to score a batch.
+	 */
+	public WorkerPool(final @NotNull Class<? extends FitnessFunction> fitnessFunction, int numWorkers) {
+		this(fitnessFunction, numWorkers, DEFAULT_BATCH_SIZE, DEFAULT_TIMEOUT, new ArrayList<>());
+	}
+
+	/**
+	 * @param fitnessFunction The fitness function each worker creates with its public no argument constructor.
+	 * @param numWorkers The number of worker processes.
+	 * @param batchSize The number of genomes sent to a worker at once.
+	 * @param timeout The milliseconds to wait for a worker to score a batch before it is treated as dead,
+	 * or zero to wait forever. Zero disables hang detection, so a hung worker blocks the evaluation
+	 * and only a worker that dies is retried.
+	 * @param jvmArgs The extra arguments of the worker JVMs, for example the heap size.
+	 */
+	public WorkerPool(
+		final @NotNull Class<? extends FitnessFunction> fitnessFunction,
+		int numWorkers,
+		int batchSize,
+		int timeout,
+		final @NotNull List<String> jvmArgs
+	) {
+		if (numWorkers <= 0) {
+			throw new IllegalArgumentException("must have at least 1 worker");
+		}
+
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("batch size must be positive");
+		}
+
+		if (timeout < 0) {
+			throw new IllegalArgumentException("timeout must not be negative");
+		}
+
+		this.fitnessFunction = fitnessFunction.getName();
+		this.batchSize = batchSize;
+		this.timeout = timeout;
+		this.jvmArgs = new ArrayList<>(Objects.requireNonNull(jvmArgs));
+
+		for (int i = 0; i < numWorkers; ++i) {
+			final Dispatcher dispatcher = new Dispatcher(i);
+			final Thread thread = new Thread(dispatcher, "neat-worker-" + i);
+			thread.setDaemon(true);
+			thread.start();
+			dispatchers.add(dispatcher);
+			threads.add(thread);
+		}
+	}
+
+	@Override
+	public void evaluate(final @NotNull List<Genome> genomes) {
+
+		if (closed) {
+			throw new IllegalStateException("WorkerPool has been closed");
+		}
+
+		final int numBatches = (genomes.size() + batchSize - 1) / batchSize;
+		final Round round = new Round(numBatches);
+
+		for (int start = 0; start < genomes.size(); start += batchSize) {
+			queue.add(new Batch(round, genomes.subList(start, Math.min(genomes.size(), start + batchSize))));
+		}
+
+		round.await();
+	}
+
+	/**
+	 * Stop every worker process. Any evaluation still in progress fails.
+	 */
+	@Override
+	public void close() {
+
+		closed = true;
+
+		for (final Thread thread : threads) {
+			thread.interrupt();
+		}
+
+		for (final Dispatcher dispatcher : dispatchers) {
+			dispatcher.stop();
+		}
+
+		Batch batch;
+
+		while ((batch = queue.poll()) != null) {
+			batch.round.fail(new IllegalStateException("WorkerPool has been closed"));
+		}
+	}
+
+	/**
+	 * The batches of a single call to {@link #evaluate(List)}.
+	 */
+	private static final class Round {
+
+		private final CountDownLatch remaining;
+		private volatile RuntimeException failure;
+
+		private Round(int numBatches) {
+			this.remaining = new CountDownLatch(numBatches);
+		}
+
+		private void complete() {
+			remaining.countDown();
+		}
+
+		private void fail(final @NotNull RuntimeException e) {
+			if (failure == null) {
+				failure = e;
+			}
+
+			remaining.countDown();
+		}
+
+		private boolean isFailed() {
+			return failure != null;
+		}
+
+		private void await() {
+			try {
+				remaining.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for workers", e);
+			}
+
+			if (failure != null) {
+				throw failure;
+			}
+		}
+	}
+
+	private static final class Batch {
+
+		private final Round round;
+		private final List<Genome> genomes;
+		private int attempts;
+
+		private Batch(final @NotNull Round round, final @NotNull List<Genome> genomes) {
+			this.round = round;
+			this.genomes = genomes;
+		}
+	}
+
+	/**
+	 * Owns a single worker process and feeds it batches from the queue.
+	 */
+	private final class Dispatcher implements Runnable {
+
+		private final int index;
+		private Process process;
+		private Socket socket;
+		private DataInputStream in;
+		private DataOutputStream out;
+		private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+		private Dispatcher(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!closed) {
+					final Batch batch = queue.take();
+
+					if (batch.round.isFailed()) {
+						batch.round.complete();
+						continue;
+					}
+
+					try {
+						send(batch);
+						batch.round.complete();
+					} catch (IOException e) {
+						LOG.warn("Worker {} failed, re-queueing {} genomes", index, batch.genomes.size(), e);
+						stop();
+						retry(batch, e);
+					} catch (RuntimeException e) {
+						batch.round.fail(e);
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				stop();
+			}
+		}
+
+		private void retry(final @NotNull Batch batch, final @NotNull IOException cause) {
+			if (closed) {
+				batch.round.fail(new IllegalStateException("WorkerPool has been closed", cause));
+			} else if (++batch.attempts >= MAX_ATTEMPTS) {
+				batch.round.fail(new IllegalStateException(
+					String.format("Batch failed on %d workers", batch.attempts), cause
+				));
+			} else {
+				queue.add(batch);
+			}
+		}
+
+		private void send(final @NotNull Batch batch) throws IOException {
+
+			int size = 0;
+
+			for (final Genome genome : batch.genomes) {
+				size += GenomeCodec.maxEncodedSize(genome);
+			}
+
+			if (buffer.capacity() < size) {
+				buffer = ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2));
+			}
+
+			buffer.clear();
+
+			for (final Genome genome : batch.genomes) {
+				GenomeCodec.encode(genome, buffer);
+			}
+
+			final DataInputStream in;
+			final DataOutputStream out;
+
+			synchronized (this) {
+				start();
+				in = this.in;
+				out = this.out;
+			}
+
+			out.writeInt(buffer.position());
+			out.writeInt(batch.genomes.size());
+			out.write(buffer.array(), 0, buffer.position());
+			out.flush();
+
+			final float[] fitness = new float[batch.genomes.size()];
+
+			for (int i = 0; i < fitness.length; ++i) {
+				fitness[i] = in.readFloat();
+			}
+
+			// Only publish the results once the whole batch has been received.
+			for (int i = 0; i < fitness.length; ++i) {
+				batch.genomes.get(i).setFitness(fitness[i]);
+			}
+		}
+
+		/**
+		 * Start the worker process if it isn't already running.
+		 */
+		private synchronized void start() throws IOException {
+
+			if (socket != null) {
+				return;
+			}
+
+			try (final ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+				server.setSoTimeout(STARTUP_TIMEOUT);
+
+				final List<String> command = new ArrayList<>();
+				command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+				command.addAll(jvmArgs);
+				command.add("-cp");
+				command.add(System.getProperty("java.class.path"));
+				command.add(Worker.class.getName());
+				command.add(Integer.toString(server.getLocalPort()));
+				command.add(fitnessFunction);
+
+				process = new ProcessBuilder(command).inheritIO().start();
+				socket = server.accept();
+			} catch (IOException e) {
+				stop();
+				throw e;
+			}
+
+			socket.setTcpNoDelay(true);
+			socket.setSoTimeout(timeout);
+			in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		}
+
+		/**
+		 * Close the connection and kill the worker process.
+		 */
+		private synchronized void stop() {
+
+			if (socket != null) {
+				try {
+					socket.close();
+				} catch (IOException e) {
+					LOG.debug("Unable to close the socket of worker {}", index, e);
+				}
+			}
+
+			if (process != null) {
+				process.destroyForcibly();
+			}
+
+			socket = null;
+			process = null;
+			in = null;
+			out = null;
+		}
+	}
+}
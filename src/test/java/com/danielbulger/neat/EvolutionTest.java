@@ -0,0 +1,120 @@
+package com.danielbulger.neat;
+
+import com.danielbulger.neat.evaluate.FitnessFunction;
+import com.danielbulger.neat.evaluate.SpeciesDistanceClassifier;
+import com.danielbulger.neat.select.WeightedFitnessSelect;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EvolutionTest {
+
+	private static final int GENERATIONS = 15;
+
+	private static final FitnessFunction FITNESS = genome -> {
+		float sum = 0;
+
+		for (final float output : genome.feedForward(new float[]{1, 0.5f, 0.25f})) {
+			sum += output;
+		}
+
+		return sum;
+	};
+
+	private static Evolution create(ExecutorService executor) throws IOException {
+		final Properties properties = new Properties();
+
+		try (InputStream in = EvolutionTest.class.getResourceAsStream("/neat.properties")) {
+			properties.load(in);
+		}
+
+		properties.setProperty("population.initial-size", "200");
+		properties.setProperty("evolution.seed", "42");
+
+		return new Evolution(
+			properties,
+			new SpeciesDistanceClassifier(),
+			new WeightedFitnessSelect(),
+			FITNESS,
+			executor
+		);
+	}
+
+	/**
+	 * @return The structural hash and fitness of every genome, in population order.
+	 */
+	private static List<Long> snapshot(Evolution evolution) {
+		final List<Long> snapshot = new ArrayList<>();
+
+		for (final Genome genome : evolution.getGenomes()) {
+			snapshot.add(genome.getStructuralHash());
+			snapshot.add((long) Float.floatToIntBits(genome.getFitness()));
+		}
+
+		return snapshot;
+	}
+
+	private static List<Long> evolve(int threads) throws IOException {
+		final ForkJoinPool executor = new ForkJoinPool(threads);
+
+		try {
+			final Evolution evolution = create(executor);
+
+			for (int i = 0; i < GENERATIONS; ++i) {
+				evolution.evolve();
+			}
+
+			return snapshot(evolution);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	void sameSeedIsIdenticalOnAnyNumberOfThreads() throws IOException {
+		final List<Long> single = evolve(1);
+
+		assertEquals(single, evolve(1));
+		assertEquals(single, evolve(4));
+	}
+
+	@Test
+	void resumedRunIsIdentical() throws IOException {
+		final ForkJoinPool executor = new ForkJoinPool(2);
+		final Path checkpoint = Files.createTempFile("evolution-test", ".checkpoint");
+
+		try {
+			final Evolution uninterrupted = create(executor);
+
+			for (int i = 0; i < GENERATIONS; ++i) {
+				uninterrupted.evolve();
+
+				if (i == GENERATIONS / 2) {
+					Checkpoint.save(uninterrupted, checkpoint);
+				}
+			}
+
+			final Evolution resumed = create(executor);
+			Checkpoint.restore(resumed, checkpoint);
+
+			for (int i = GENERATIONS / 2 + 1; i < GENERATIONS; ++i) {
+				resumed.evolve();
+			}
+
+			assertEquals(snapshot(uninterrupted), snapshot(resumed));
+		} finally {
+			executor.shutdown();
+			Files.deleteIfExists(checkpoint);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.danielbulger.neat;
+
+import com.danielbulger.neat.activation.Activation;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenomeTest {
+
+	private static Genome parent() {
+		final Genome genome = new Genome();
+		genome.addNode(1, NodeType.INPUT);
+		genome.addNode(2, NodeType.OUTPUT);
+		genome.addNode(3, NodeType.HIDDEN);
+		genome.addConnection(1, 1, 3, 0.5f, true);
+		genome.addConnection(2, 3, 2, 0.25f, true);
+		return genome;
+	}
+
+	@Test
+	void copyDoesNotChangeParent() {
+		final Genome parent = parent();
+		final long hash = parent.getStructuralHash();
+		final Genome child = new Genome(parent);
+
+		child.setWeight(0, 2f);
+		child.setEnabled(1, false);
+		child.addNode(4, NodeType.HIDDEN);
+		child.addConnection(3, 1, 4, 1f, true);
+		child.setActivationFunction(3, Activation.TANH);
+
+		assertEquals(hash, parent.getStructuralHash());
+		assertEquals(0.5f, parent.getConnectionGenes().getWeight(0));
+		assertTrue(parent.getConnectionGenes().isEnabled(1));
+		assertEquals(3, parent.getNodeGenes().size());
+		assertEquals(2, parent.getConnectionGenes().size());
+		assertFalse(parent.isConnected(1, 4));
+		assertNull(parent.getNodeGenes().getActivationFunction(2));
+	}
+
+	@Test
+	void parentChangesDoNotReachCopy() {
+		final Genome parent = parent();
+		final Genome child = new Genome(parent);
+		final long hash = child.getStructuralHash();
+
+		parent.setWeight(0, -1f);
+		parent.addNode(4, NodeType.HIDDEN);
+		parent.addConnection(3, 3, 4, 1f, true);
+
+		assertEquals(hash, child.getStructuralHash());
+		assertFalse(child.isConnected(3, 4));
+	}
+
+	@Test
+	void replacedGeneDisconnectsOldNodes() {
+		final Genome genome = parent();
+		genome.addNode(4, NodeType.HIDDEN);
+		genome.addConnection(1, 1, 4, 1f, true);
+
+		assertFalse(genome.isConnected(1, 3));
+		assertTrue(genome.isConnected(1, 4));
+	}
+}
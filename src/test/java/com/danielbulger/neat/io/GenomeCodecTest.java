@@ -0,0 +1,107 @@
+package com.danielbulger.neat.io;
+
+import com.danielbulger.neat.ConnectionGenes;
+import com.danielbulger.neat.Genome;
+import com.danielbulger.neat.NodeGenes;
+import com.danielbulger.neat.NodeType;
+import com.danielbulger.neat.activation.Activation;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenomeCodecTest {
+
+	@Test
+	void roundTrip() {
+		final Genome genome = new Genome();
+		genome.addNode(1, NodeType.INPUT);
+		genome.addNode(2, NodeType.OUTPUT);
+		genome.addNode(70_000, NodeType.HIDDEN);
+		genome.addNode(3, NodeType.HIDDEN);
+		genome.addConnection(4, 1, 70_000, 0.5f, true);
+		genome.addConnection(9, 70_000, 2, -1.25f, false);
+		genome.addConnection(300, 1, 3, Float.MIN_VALUE, true);
+		genome.addConnection(Integer.MAX_VALUE, 3, 2, 2f, false);
+		genome.setActivationFunction(Activation.RELU);
+		genome.setActivationFunction(3, Activation.TANH);
+		genome.setFitness(3.5f);
+
+		assertGenomeEquals(genome, decode(genome));
+	}
+
+	@Test
+	void roundTripLargeFirstInnovation() {
+		final Genome genome = new Genome();
+		genome.addNode(1, NodeType.INPUT);
+		genome.addNode(2, NodeType.OUTPUT);
+		genome.addConnection(Integer.MIN_VALUE + 1, 1, 2, 1f, true);
+
+		assertGenomeEquals(genome, decode(genome));
+	}
+
+	@Test
+	void rejectsOtherVersion() {
+		final Genome genome = new Genome();
+		final ByteBuffer buffer = encode(genome);
+		buffer.put(0, (byte) (GenomeCodec.VERSION + 1));
+
+		assertThrows(IllegalArgumentException.class, () -> GenomeCodec.decode(buffer));
+	}
+
+	@Test
+	void rejectsTruncated() {
+		final Genome genome = new Genome();
+		genome.addNode(1, NodeType.INPUT);
+		genome.addNode(2, NodeType.OUTPUT);
+		genome.addConnection(1, 1, 2, 1f, true);
+
+		final ByteBuffer buffer = encode(genome);
+		buffer.limit(buffer.limit() - 1);
+
+		assertThrows(IllegalArgumentException.class, () -> GenomeCodec.decode(buffer));
+	}
+
+	private static ByteBuffer encode(Genome genome) {
+		final ByteBuffer buffer = ByteBuffer.allocate(GenomeCodec.maxEncodedSize(genome));
+		GenomeCodec.encode(genome, buffer);
+		return buffer.flip();
+	}
+
+	private static Genome decode(Genome genome) {
+		final ByteBuffer buffer = encode(genome);
+		final Genome decoded = GenomeCodec.decode(buffer);
+
+		assertFalse(buffer.hasRemaining());
+		return decoded;
+	}
+
+	private static void assertGenomeEquals(Genome expected, Genome actual) {
+		final NodeGenes expectedNodes = expected.getNodeGenes();
+		final NodeGenes actualNodes = actual.getNodeGenes();
+		final ConnectionGenes expectedGenes = expected.getConnectionGenes();
+		final ConnectionGenes actualGenes = actual.getConnectionGenes();
+
+		assertEquals(expected.getFitness(), actual.getFitness());
+		assertEquals(expected.getActivationFunction(), actual.getActivationFunction());
+		assertEquals(expectedNodes.size(), actualNodes.size());
+		assertEquals(expectedGenes.size(), actualGenes.size());
+
+		for (int i = 0; i < expectedNodes.size(); ++i) {
+			assertEquals(expectedNodes.getId(i), actualNodes.getId(i));
+			assertEquals(expectedNodes.getType(i), actualNodes.getType(i));
+			assertEquals(expectedNodes.getActivationFunction(i), actualNodes.getActivationFunction(i));
+		}
+
+		for (int i = 0; i < expectedGenes.size(); ++i) {
+			assertEquals(expectedGenes.getInnovation(i), actualGenes.getInnovation(i));
+			assertEquals(expectedGenes.getFrom(i), actualGenes.getFrom(i));
+			assertEquals(expectedGenes.getTo(i), actualGenes.getTo(i));
+			assertEquals(expectedGenes.getWeight(i), actualGenes.getWeight(i));
+			assertEquals(expectedGenes.isEnabled(i), actualGenes.isEnabled(i));
+		}
+
+		assertEquals(expected.getStructuralHash(), actual.getStructuralHash());
+	}
+}
@@ -0,0 +1,62 @@
+package com.danielbulger.neat.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTest {
+
+	@Test
+	void addAndRemoveMatchHashSet() {
+		final Random random = new Random(0);
+
+		// A small key range keeps the table crowded so removals shift long probe runs back.
+		for (int range : new int[]{8, 64, 1000}) {
+			final LongHashSet set = new LongHashSet();
+			final Set<Long> expected = new HashSet<>();
+
+			for (int i = 0; i < 20_000; ++i) {
+				final long key = random.nextInt(range) - range / 4;
+
+				if (random.nextBoolean()) {
+					assertEquals(expected.add(key), set.add(key));
+				} else {
+					assertEquals(expected.remove(key), set.remove(key));
+				}
+
+				assertEquals(expected.size(), set.size());
+			}
+
+			for (long key = -range; key < range; ++key) {
+				assertEquals(expected.contains(key), set.contains(key), Long.toString(key));
+			}
+		}
+	}
+
+	@Test
+	void copyIsIndependent() {
+		final LongHashSet original = new LongHashSet();
+
+		for (long key = 0; key < 100; ++key) {
+			original.add(key);
+		}
+
+		final LongHashSet copy = new LongHashSet(original);
+		copy.remove(5);
+		copy.add(1000);
+		original.remove(6);
+
+		assertTrue(original.contains(5));
+		assertFalse(original.contains(1000));
+		assertFalse(original.contains(6));
+		assertFalse(copy.contains(5));
+		assertTrue(copy.contains(1000));
+		assertTrue(copy.contains(6));
+		assertEquals(99, original.size());
+		assertEquals(100, copy.size());
+	}
+}
@@ -0,0 +1,162 @@
+package com.danielbulger.neat.network;
+
+import com.danielbulger.neat.activation.Activation;
+import com.danielbulger.neat.activation.ActivationFunction;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link Kernel} using the preferred vector width of the CPU, loaded by {@link Kernels} when the
+ * {@code jdk.incubator.vector} module is available.
+ * <p>
+ * The weighted sum of a node keeps a partial sum in each lane which are added together at the end,
+ * gathering the source values when they are not consecutive. Batches are vectorised across the samples
+ * of a block, and the built-in sigmoid, tanh and ReLU activations are applied a vector at a time.
+ */
+final class VectorKernel implements Kernel {
+
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+	private static final int LENGTH = SPECIES.length();
+
+	private static final FloatVector ONE = FloatVector.broadcast(SPECIES, 1f);
+
+	VectorKernel() {
+		// Anything narrower is slower than the scalar kernel.
+		if (LENGTH < 4) {
+			throw new UnsupportedOperationException(String.format("Expected at least 4 float lanes got %d", LENGTH));
+		}
+	}
+
+	@Override
+	public float sum(float initial, @NotNull float[] weights, @NotNull int[] sources, @NotNull float[] values, int start, int end) {
+		int i = start;
+		float sum = initial;
+
+		if (end - start >= LENGTH) {
+			FloatVector partial = FloatVector.zero(SPECIES);
+
+			for (final int bound = start + SPECIES.loopBound(end - start); i < bound; i += LENGTH) {
+				final FloatVector weight = FloatVector.fromArray(SPECIES, weights, i);
+				partial = weight.fma(FloatVector.fromArray(SPECIES, values, 0, sources, i), partial);
+			}
+
+			sum += partial.reduceLanes(VectorOperators.ADD);
+		}
+
+		for (; i < end; ++i) {
+			sum += weights[i] * values[sources[i]];
+		}
+
+		return sum;
+	}
+
+	@Override
+	public float sumContiguous(float initial, @NotNull float[] weights, @NotNull float[] values, int first, int start, int end) {
+		int i = start;
+		float sum = initial;
+		final int offset = first - start;
+
+		if (end - start >= LENGTH) {
+			FloatVector partial = FloatVector.zero(SPECIES);
+
+			for (final int bound = start + SPECIES.loopBound(end - start); i < bound; i += LENGTH) {
+				final FloatVector weight = FloatVector.fromArray(SPECIES, weights, i);
+				partial = weight.fma(FloatVector.fromArray(SPECIES, values, offset + i), partial);
+			}
+
+			sum += partial.reduceLanes(VectorOperators.ADD);
+		}
+
+		for (; i < end; ++i) {
+			sum += weights[i] * values[offset + i];
+		}
+
+		return sum;
+	}
+
+	@Override
+	public void accumulate(
+		@NotNull float[] weights,
+		@NotNull int[] sources,
+		int start,
+		int end,
+		@NotNull float[] values,
+		int to,
+		int count,
+		int stride
+	) {
+		int sample = 0;
+
+		// Keep a vector of the target in a register while every connection is added to it.
+		for (final int bound = SPECIES.loopBound(count); sample < bound; sample += LENGTH) {
+			FloatVector sum = FloatVector.fromArray(SPECIES, values, to + sample);
+
+			for (int i = start; i < end; ++i) {
+				final FloatVector value = FloatVector.fromArray(SPECIES, values, sources[i] * stride + sample);
+				sum = value.fma(FloatVector.broadcast(SPECIES, weights[i]), sum);
+			}
+
+			sum.intoArray(values, to + sample);
+		}
+
+		for (; sample < count; ++sample) {
+			float sum = values[to + sample];
+
+			for (int i = start; i < end; ++i) {
+				sum += weights[i] * values[sources[i] * stride + sample];
+			}
+
+			values[to + sample] = sum;
+		}
+	}
+
+	@Override
+	public void activate(@NotNull ActivationFunction function, @NotNull float[] values, int offset, int count) {
+
+		if (!(function instanceof Activation) || function == Activation.LOOKUP_SIGMOID) {
+			function.apply(values, offset, count);
+			return;
+		}
+
+		final Activation activation = (Activation) function;
+		int i = offset;
+
+		for (final int bound = offset + SPECIES.loopBound(count); i < bound; i += LENGTH) {
+			final FloatVector x = FloatVector.fromArray(SPECIES, values, i);
+			apply(activation, x).intoArray(values, i);
+		}
+
+		for (final int end = offset + count; i < end; ++i) {
+			values[i] = function.apply(values[i]);
+		}
+	}
+
+	private static FloatVector apply(Activation activation, FloatVector x) {
+		switch (activation) {
+			case SIGMOID:
+				return ONE.div(x.neg().lanewise(VectorOperators.EXP).add(1f));
+			case RATIONAL_SIGMOID:
+				// The same approximation as the scalar function, see Activation.RATIONAL_SIGMOID.
+				final FloatVector t = x.mul(0.5f).min(4.97f).max(-4.97f);
+				final FloatVector t2 = t.mul(t);
+				final FloatVector numerator = t2.add(378f).mul(t2).add(17325f).mul(t2).add(135135f);
+				final FloatVector denominator = t2.mul(28f).add(3150f).mul(t2).add(62370f).mul(t2).add(135135f);
+				final FloatVector tanh = t.mul(numerator).div(denominator);
+				return tanh.min(1f).max(-1f).mul(0.5f).add(0.5f);
+			case TANH:
+				return x.lanewise(VectorOperators.TANH);
+			case RELU:
+				return x.max(0f);
+			default:
+				throw new IllegalArgumentException(String.format("Unexpected activation %s", activation));
+		}
+	}
+
+	@Override
+	public String toString() {
+		return String.format("the Vector API with %d float lanes", LENGTH);
+	}
+}